@@ -0,0 +1,83 @@
+package com.school.backend.Repository;
+
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Entity.Student;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'une page d'étudiants par Hibernate sur H2 en mémoire : entités managées puis mapping
+ * en StudentResponse (ancien chemin) contre projection directe "select new" en session readOnly.
+ * Le coût à comparer est surtout l'allocation par page : lancer avec -prof gc (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StudentProjectionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int pageSize;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Student.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .buildSessionFactory();
+
+        Level[] levels = Level.values();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < 5_000; i++) {
+                session.persist(new Student(null, "student" + i, levels[i % levels.length]));
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public List<StudentResponse> managedEntities() {
+        return sessionFactory.fromTransaction(session -> session
+                .createSelectionQuery("from Student s order by s.id", Student.class)
+                .setMaxResults(pageSize)
+                .getResultList().stream()
+                .map(s -> new StudentResponse(s.getId(), s.getUsername(), s.getLevel()))
+                .toList());
+    }
+
+    @Benchmark
+    public List<StudentResponse> projection() {
+        return sessionFactory.fromTransaction(session -> {
+            readOnly(session);
+            return session.createSelectionQuery(
+                            "select new com.school.backend.DTO.StudentResponse(s.id, s.username, s.level) " +
+                                    "from Student s order by s.id", StudentResponse.class)
+                    .setMaxResults(pageSize)
+                    .getResultList();
+        });
+    }
+
+    // Ce que fait @Transactional(readOnly = true) côté Hibernate
+    private static void readOnly(Session session) {
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+    }
+}
@@ -0,0 +1,65 @@
+package com.school.backend.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Entity.Student;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réponse de GET /api/students : mapping entité → DTO puis sérialisation JSON de la page,
+ * avec un ObjectMapper configuré comme celui de Spring MVC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StudentPageBenchmark {
+
+    @Param({"5", "100", "1000"})
+    private int pageSize;
+
+    private List<Student> students;
+    private Page<StudentResponse> page;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        Level[] levels = Level.values();
+        students = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            students.add(new Student((long) i + 1, "student" + i, levels[i % levels.length]));
+        }
+        page = new PageImpl<>(mapPage(), PageRequest.of(0, pageSize), 100_000);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<StudentResponse> mapPage() {
+        return students.stream()
+                .map(StudentService::toResponse)
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(
+                new PageImpl<>(mapPage(), PageRequest.of(0, pageSize), 100_000));
+    }
+}
@@ -0,0 +1,115 @@
+package com.school.backend.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.school.backend.DTO.PageResponse;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Repository.StudentJdbcRepository;
+import com.school.backend.Repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Corps de GET /api/students : PageImpl sérialisé tel quel (pageable, sort...), enveloppe
+ * PageResponse, et page écrite en flux par StudentService.writePageJson (lignes fournies
+ * par un faux StudentJdbcRepository, sans base). Tailles en octets affichées au démarrage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StudentPageJsonBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int pageSize;
+
+    private List<StudentResponse> rows;
+    private Page<StudentResponse> page;
+    private ObjectMapper objectMapper;
+    private StudentService studentService;
+
+    @Setup
+    public void setUp() throws IOException {
+        Level[] levels = Level.values();
+        rows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            rows.add(new StudentResponse((long) i + 1, "student" + i, levels[i % levels.length]));
+        }
+        page = new PageImpl<>(rows, PageRequest.of(0, pageSize), 100_000);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        StudentRepository studentRepository = mock(StudentRepository.class);
+        when(studentRepository.count()).thenReturn(100_000L);
+        StudentJdbcRepository jdbcRepository = new StudentJdbcRepository(null) {
+            @Override
+            public void scanPage(Level level, long offset, int limit, Consumer<StudentResponse> consumer) {
+                rows.forEach(consumer);
+            }
+        };
+        studentService = new StudentService(studentRepository, jdbcRepository, null, null, null, null, null,
+                new SimpleMeterRegistry(), mock(PlatformTransactionManager.class), 1000);
+
+        byte[] pageImpl = pageImpl();
+        byte[] compact = pageResponse();
+        System.out.printf("%n[size=%d] PageImpl: %d B (gzip %d B), PageResponse: %d B (gzip %d B)%n",
+                pageSize, pageImpl.length, gzip(pageImpl), compact.length, gzip(compact));
+    }
+
+    @Benchmark
+    public byte[] pageImpl() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] pageResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(PageResponse.of(page));
+    }
+
+    // Écrit dans un flux qui jette les octets : seul le coût de sérialisation est mesuré
+    @Benchmark
+    public void streamed(Blackhole blackhole) throws IOException {
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(len);
+            }
+        };
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(sink)) {
+            studentService.writePageJson(0, pageSize, null, json);
+        }
+    }
+
+    private static int gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        }
+        return out.size();
+    }
+}
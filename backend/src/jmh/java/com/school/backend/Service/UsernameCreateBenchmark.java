@@ -0,0 +1,95 @@
+package com.school.backend.Service;
+
+import com.school.backend.Entity.Student;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Créations concurrentes de usernames nouveaux (8 threads) sur H2 en mode serveur TCP local,
+ * pour compter les allers-retours réseau : SELECT d'existence puis INSERT (ancien chemin)
+ * contre filtre de Bloom puis INSERT seul, la contrainte d'unicité tranchant les conflits.
+ * Résultat en créations/ms (débit cumulé de tous les threads). Le serveur H2 tourne dans la même JVM
+ * et met longtemps à chauffer, d'où le warmup plus long.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 15, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class UsernameCreateBenchmark {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO students (username, username_normalized, level) VALUES (?, ?, ?)";
+
+    private Server server;
+    private JdbcConnectionPool pool;
+    private JdbcTemplate jdbcTemplate;
+    private UsernameBloomFilter.Bits filter;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+        pool = JdbcConnectionPool.create("jdbc:h2:tcp://localhost:" + port + "/mem:bench;MODE=MySQL", "sa", "");
+        pool.setMaxConnections(16);
+        jdbcTemplate = new JdbcTemplate(pool);
+        jdbcTemplate.execute("CREATE TABLE students (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "username VARCHAR(255) NOT NULL UNIQUE, username_normalized VARCHAR(255), level VARCHAR(8) NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_students_username_normalized ON students (username_normalized)");
+        filter = new UsernameBloomFilter.Bits(1_000_000, 0.01);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.dispose();
+        server.stop();
+    }
+
+    @Benchmark
+    public boolean checkThenInsert() {
+        String username = "user" + sequence.incrementAndGet();
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM students WHERE username_normalized = ?", Integer.class, Student.normalize(username));
+        if (count != null && count > 0) {
+            return false;
+        }
+        return insert(username);
+    }
+
+    @Benchmark
+    public boolean filterThenInsert() {
+        String username = "user" + sequence.incrementAndGet();
+        String normalized = Student.normalize(username);
+        if (filter.mightContain(normalized)) {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM students WHERE username_normalized = ?", Integer.class, normalized);
+            if (count != null && count > 0) {
+                return false;
+            }
+        }
+        boolean inserted = insert(username);
+        filter.put(normalized);
+        return inserted;
+    }
+
+    private boolean insert(String username) {
+        try {
+            return jdbcTemplate.update(INSERT_SQL, username, Student.normalize(username), "L1") == 1;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.school.backend.Util;
+
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Entity.Student;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import / export CSV à différentes tailles de fichier.
+ * {@code -prof gc} donne l'allocation par opération : toCsv (String complète en mémoire)
+ * contre writeCsv (flux, buffer borné) ; parseCsv lit en flux sans garder les lignes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvUtilBenchmark {
+
+    @Param({"100", "10000", "100000", "1000000"})
+    private int rows;
+
+    private MockMultipartFile file;
+    private List<Student> students;
+    private List<StudentResponse> responses;
+
+    @Setup
+    public void setUp() {
+        Level[] levels = Level.values();
+        students = new ArrayList<>(rows);
+        responses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Level level = levels[i % levels.length];
+            students.add(new Student((long) i + 1, "student" + i, level));
+            responses.add(new StudentResponse((long) i + 1, "student" + i, level));
+        }
+        file = new MockMultipartFile("file", "students.csv", "text/csv",
+                CsvUtil.toCsv(students).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lignes passées une à une au handler : rien n'est accumulé
+    @Benchmark
+    public long parseCsv(Blackhole bh) throws IOException {
+        return CsvUtil.parseCsv(file.getInputStream(), new CsvUtil.RowHandler() {
+            @Override
+            public void onStudent(long line, Student student) {
+                bh.consume(student);
+            }
+
+            @Override
+            public void onError(long line, String message) {
+                bh.consume(message);
+            }
+        });
+    }
+
+    @Benchmark
+    public String toCsv() {
+        return CsvUtil.toCsv(students);
+    }
+
+    @Benchmark
+    public void writeCsv(Blackhole bh) throws IOException {
+        CsvUtil.writeCsv(responses.iterator(), new BlackholeOutputStream(bh));
+    }
+
+    // Consomme les octets sans les garder : on mesure l'écriture, pas un tampon de sortie
+    private static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole bh;
+
+        BlackholeOutputStream(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void write(int b) {
+            bh.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bh.consume(b);
+            bh.consume(len);
+        }
+    }
+}
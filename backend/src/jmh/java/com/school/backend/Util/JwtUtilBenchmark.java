@@ -0,0 +1,55 @@
+package com.school.backend.Util;
+
+import com.school.backend.Entity.Admin;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût par requête authentifiée : génération au login, puis vérification à chaque appel.
+ * {@code verifyCached} est le chemin du JwtAuthenticationFilter (jeton déjà vu),
+ * {@code parseUncached} le parsing + HMAC complet d'un jeton jamais vu.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private Admin admin;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "mySuperSecretJwtKeyThatIsVeryLongAndSecure12345678901234567890");
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 10_000L);
+        jwtUtil.init();
+
+        admin = new Admin();
+        admin.setUsername("admin");
+        admin.setPassword("hash");
+        token = jwtUtil.generateToken(admin);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(admin);
+    }
+
+    @Benchmark
+    public Optional<JwtUtil.VerifiedToken> verifyCached() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public String parseUncached() {
+        return jwtUtil.extractUsername(token);
+    }
+}
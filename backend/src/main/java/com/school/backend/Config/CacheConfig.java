@@ -0,0 +1,9 @@
+package com.school.backend.Config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Caches Caffeine configurés dans application.yaml (spring.cache.*)
+@Configuration
+@EnableCaching
+public class CacheConfig {}
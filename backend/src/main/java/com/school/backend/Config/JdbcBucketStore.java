@@ -0,0 +1,158 @@
+package com.school.backend.Config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+
+// Buckets partagés entre toutes les instances, dans la base MySQL existante.
+// Même principe que le proxy manager MySQL de bucket4j (SELECT ... FOR UPDATE sur la ligne
+// du bucket, puis UPDATE de l'état sérialisé), écrit sur le cœur de bucket4j pour une clé texte.
+// Les lignes inactives sont purgées périodiquement (colonne expires_at).
+public class JdbcBucketStore implements RateLimitBucketStore {
+
+    static final String TABLE = "rate_limit_bucket";
+
+    private final BucketConfiguration configuration;
+    private final ProxyManager proxyManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final long idleExpiryMs;
+
+    public JdbcBucketStore(DataSource dataSource, BucketConfiguration configuration, Duration idleExpiry) {
+        this.configuration = configuration;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idleExpiryMs = idleExpiry.toMillis();
+        this.proxyManager = new ProxyManager(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                "id VARCHAR(255) NOT NULL PRIMARY KEY, " +
+                "state BLOB, " +
+                "expires_at BIGINT)");
+    }
+
+    @Override
+    public Bucket bucket(String key) {
+        return proxyManager.builder().build(key, () -> configuration);
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.jdbc.cleanup-interval-ms:60000}")
+    public void deleteExpired() {
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE expires_at < ?", System.currentTimeMillis());
+    }
+
+    private class ProxyManager extends AbstractSelectForUpdateBasedProxyManager<String> {
+
+        private final DataSource dataSource;
+
+        ProxyManager(DataSource dataSource) {
+            super(ClientSideConfig.getDefault());
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public void removeProxy(String key) {
+            jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id = ?", key);
+        }
+
+        @Override
+        protected SelectForUpdateBasedTransaction allocateTransaction(String key, Optional<Long> requestTimeoutNanos) {
+            Connection connection;
+            try {
+                connection = dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return new SelectForUpdateBasedTransaction() {
+                @Override
+                public void begin(Optional<Long> timeout) {
+                    try {
+                        connection.setAutoCommit(false);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+
+                @Override
+                public LockAndGetResult tryLockAndGet(Optional<Long> timeout) {
+                    try (PreparedStatement ps = connection.prepareStatement(
+                            "SELECT state FROM " + TABLE + " WHERE id = ? FOR UPDATE")) {
+                        applyTimeout(ps, timeout);
+                        ps.setString(1, key);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            return rs.next() ? LockAndGetResult.locked(rs.getBytes(1)) : LockAndGetResult.notLocked();
+                        }
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+
+                @Override
+                public boolean tryInsertEmptyData(Optional<Long> timeout) {
+                    try (PreparedStatement ps = connection.prepareStatement(
+                            "INSERT IGNORE INTO " + TABLE + " (id, state, expires_at) VALUES (?, NULL, ?)")) {
+                        applyTimeout(ps, timeout);
+                        ps.setString(1, key);
+                        ps.setLong(2, System.currentTimeMillis() + idleExpiryMs);
+                        ps.executeUpdate();
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+
+                @Override
+                public void update(byte[] data, RemoteBucketState newState, Optional<Long> timeout) {
+                    try (PreparedStatement ps = connection.prepareStatement(
+                            "UPDATE " + TABLE + " SET state = ?, expires_at = ? WHERE id = ?")) {
+                        applyTimeout(ps, timeout);
+                        ps.setBytes(1, data);
+                        ps.setLong(2, System.currentTimeMillis() + idleExpiryMs);
+                        ps.setString(3, key);
+                        ps.executeUpdate();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+
+                @Override
+                public void commit(Optional<Long> timeout) {
+                    try {
+                        connection.commit();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+
+                @Override
+                public void rollback() {
+                    try {
+                        connection.rollback();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+
+                @Override
+                public void release() {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+        }
+    }
+}
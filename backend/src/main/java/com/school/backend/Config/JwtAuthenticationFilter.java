@@ -1,6 +1,7 @@
 package com.school.backend.Config;
 
 import com.school.backend.Service.AuthService;
+import com.school.backend.Service.TokenVersionRegistry;
 import com.school.backend.Util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,21 +10,30 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.core.Ordered;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 // RETIRER @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter implements Ordered {
 
     private final JwtUtil jwtUtil;
     private final AuthService authService;
+    private final TokenVersionRegistry tokenVersions;
+    private final boolean stateless;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, AuthService authService) {
+    // stateless = true : le principal est construit depuis les claims vérifiés, sans requête SQL ;
+    // la révocation passe par la version de jeton (TokenVersionRegistry)
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, AuthService authService,
+                                   TokenVersionRegistry tokenVersions, boolean stateless) {
         this.jwtUtil = jwtUtil;
         this.authService = authService;
+        this.tokenVersions = tokenVersions;
+        this.stateless = stateless;
     }
 
     @Override
@@ -38,20 +48,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter implements Ord
         }
 
         String jwt = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(jwt);
+        // Un seul parsing + vérification HMAC (ou aucun si le jeton est déjà dans le cache)
+        Optional<JwtUtil.VerifiedToken> token = jwtUtil.verify(jwt);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = authService.loadUserByUsername(username);
-
-            if (jwtUtil.isTokenValid(jwt, userDetails)) {
-                var authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities()
-                );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (token.isPresent() && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtUtil.VerifiedToken verified = token.get();
+            if (!tokenVersions.isCurrent(verified.username(), verified.version())) {
+                filterChain.doFilter(request, response); // jeton révoqué → non authentifié
+                return;
             }
+            TenantContext.set(verified.tenant());
+            UserDetails userDetails = stateless
+                    ? User.withUsername(verified.username())
+                            .password("")
+                            .authorities(verified.authorities().toArray(String[]::new))
+                            .build()
+                    : authService.loadUserByUsername(verified.username());
+
+            var authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities()
+            );
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
         }
-        filterChain.doFilter(request, response);
     }
 
     @Override
@@ -0,0 +1,41 @@
+package com.school.backend.Config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+import java.time.Duration;
+
+// Buckets en mémoire, bornés en nombre et expirés après inactivité.
+// Avec une inactivité supérieure à la période de recharge, un bucket évincé aurait de toute façon
+// été plein : l'éviction ne rend jamais de jetons à un client qui en a consommé récemment.
+public class LocalBucketStore implements RateLimitBucketStore {
+
+    private final BucketConfiguration configuration;
+    private final Cache<String, Bucket> buckets;
+
+    public LocalBucketStore(BucketConfiguration configuration, long maxKeys, Duration idleExpiry) {
+        this.configuration = configuration;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    @Override
+    public Bucket bucket(String key) {
+        return buckets.get(key, k -> {
+            var builder = Bucket.builder();
+            for (Bandwidth limit : configuration.getBandwidths()) {
+                builder.addLimit(limit);
+            }
+            return builder.build();
+        });
+    }
+
+    public long size() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,47 @@
+package com.school.backend.Config;
+
+import com.school.backend.Service.PasswordHashingService;
+import com.school.backend.Service.UsernameTrigramIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Jauges des structures internes. Les caches Caffeine (studentsById / studentsByUsername),
+// HikariCP et les statistiques Hibernate sont liés automatiquement par Spring Boot.
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordHashingService hashing) {
+        return registry -> {
+            Gauge.builder("auth.hashing.queue", hashing, h -> h.stats().queueDepth())
+                    .description("Hachages BCrypt en attente d'un thread")
+                    .register(registry);
+            Gauge.builder("auth.hashing.active", hashing, h -> h.stats().activeThreads())
+                    .register(registry);
+            FunctionCounter.builder("auth.hashing.completed", hashing, h -> h.stats().completed())
+                    .register(registry);
+            FunctionCounter.builder("auth.hashing.rejected", hashing, h -> h.stats().rejected())
+                    .description("Hachages refusés (file pleine → 503)")
+                    .register(registry);
+            Gauge.builder("auth.hashing.duration.max", hashing, h -> h.stats().maxHashMs())
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder usernameIndexMetrics(UsernameTrigramIndex index) {
+        return registry -> {
+            Gauge.builder("students.username_index.ready", index, i -> i.isReady() ? 1 : 0)
+                    .register(registry);
+            Gauge.builder("students.username_index.entries", index, i -> i.stats().students())
+                    .register(registry);
+            Gauge.builder("students.username_index.memory", index, i -> i.stats().estimatedBytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.school.backend.Config;
+
+import io.github.bucket4j.Bucket;
+
+// Où vivent les buckets du rate limiting : en mémoire (par instance) ou en base (partagés)
+public interface RateLimitBucketStore {
+
+    // key préfixée par la dimension limitée : "ip:1.2.3.4", "user:alice"
+    Bucket bucket(String key);
+}
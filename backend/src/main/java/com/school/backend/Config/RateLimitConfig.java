@@ -0,0 +1,44 @@
+package com.school.backend.Config;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// rate-limit.backend = local (défaut, une limite par instance) ou jdbc (limite partagée via MySQL)
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    public BucketConfiguration loginBucketConfiguration(
+            @Value("${rate-limit.capacity:5}") long capacity,
+            @Value("${rate-limit.refill-period-seconds:60}") long refillPeriodSeconds) {
+        // 5 tokens au départ, +5 toutes les 60 secondes → parfait
+        Bandwidth limit = Bandwidth.classic(capacity, Refill.intervally(capacity, Duration.ofSeconds(refillPeriodSeconds)));
+        return BucketConfiguration.builder().addLimit(limit).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "rate-limit.backend", havingValue = "local", matchIfMissing = true)
+    public RateLimitBucketStore localBucketStore(
+            BucketConfiguration loginBucketConfiguration,
+            @Value("${rate-limit.local.max-keys:100000}") long maxKeys,
+            @Value("${rate-limit.idle-expiry-seconds:120}") long idleExpirySeconds) {
+        return new LocalBucketStore(loginBucketConfiguration, maxKeys, Duration.ofSeconds(idleExpirySeconds));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "rate-limit.backend", havingValue = "jdbc")
+    public RateLimitBucketStore jdbcBucketStore(
+            DataSource dataSource,
+            BucketConfiguration loginBucketConfiguration,
+            @Value("${rate-limit.idle-expiry-seconds:120}") long idleExpirySeconds) {
+        return new JdbcBucketStore(dataSource, loginBucketConfiguration, Duration.ofSeconds(idleExpirySeconds));
+    }
+}
@@ -1,8 +1,8 @@
 package com.school.backend.Config;
 
-import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,19 +13,25 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class RateLimitingFilter extends OncePerRequestFilter implements Ordered {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Borné + expiration après inactivité (local) ou partagé entre instances (jdbc) : voir RateLimitConfig
+    private final RateLimitBucketStore bucketStore;
+    private final Counter ipRejections;
 
-    private Bucket createNewBucket() {
-        // 5 tokens au départ, +5 toutes les 60 secondes → parfait
-        Bandwidth limit = Bandwidth.classic(5, Refill.intervally(5, Duration.ofSeconds(60)));
-        return Bucket.builder().addLimit(limit).build();
+    public RateLimitingFilter(RateLimitBucketStore bucketStore, MeterRegistry meterRegistry) {
+        this.bucketStore = bucketStore;
+        this.ipRejections = rejections(meterRegistry, "ip");
+    }
+
+    // Refus de la limite de login ; scope = ip (ce filtre) ou user (AuthService)
+    public static Counter rejections(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("rate_limit.rejections")
+                .description("Tentatives de login refusées par la limite de débit")
+                .tag("scope", scope)
+                .register(meterRegistry);
     }
 
     @Override
@@ -46,13 +52,14 @@ public class RateLimitingFilter extends OncePerRequestFilter implements Ordered
         }
 
         String ip = request.getRemoteAddr();
-        Bucket bucket = buckets.computeIfAbsent(ip, k -> createNewBucket());
+        Bucket bucket = bucketStore.bucket("ip:" + ip);
 
         if (bucket.tryConsume(1)) {
             // 5 premières tentatives → OK
             filterChain.doFilter(request, response);
         } else {
             // 6ème et + → bloqué 60s
+            ipRejections.increment();
             response.setStatus(429);
             response.setContentType("application/json");
             response.getWriter().write(
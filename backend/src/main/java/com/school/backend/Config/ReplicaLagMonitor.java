@@ -0,0 +1,92 @@
+package com.school.backend.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Sonde périodique de la réplique. Injoignable, réplication arrêtée ou retard supérieur à
+// max-lag-seconds → isUsable() devient faux et les lectures repartent sur le primaire,
+// jusqu'à la prochaine sonde favorable. Au démarrage, la réplique n'est pas utilisée avant
+// une première sonde favorable (lancée dès le démarrage du scheduler).
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private volatile boolean usable;
+    private volatile long lastLagSeconds;
+
+    /**
+     * @param lagQuery requête de retard : {@code SHOW REPLICA STATUS} (colonne Seconds_Behind_Source /
+     *                 Seconds_Behind_Master) ou toute requête dont la 1re colonne est un retard en secondes.
+     *                 Vide : simple test de connexion.
+     */
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagSeconds) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public long getLastLagSeconds() {
+        return lastLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check-ms:5000}")
+    public void check() {
+        boolean healthy;
+        try (Connection connection = replica.getConnection()) {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                healthy = connection.isValid(2);
+            } else {
+                Long lag = readLag(connection);
+                healthy = lag != null && lag <= maxLagSeconds;
+                lastLagSeconds = lag != null ? lag : -1;
+            }
+        } catch (SQLException e) {
+            log.debug("Replica check failed: {}", e.getMessage());
+            healthy = false;
+        }
+        if (healthy != usable) {
+            if (healthy) {
+                log.info("Replica back in use for read-only transactions");
+            } else {
+                log.warn("Replica unavailable or lagging (lag={}s, max={}s), reads go to the primary",
+                        lastLagSeconds, maxLagSeconds);
+            }
+        }
+        usable = healthy;
+    }
+
+    // null = réplication arrêtée (ou pas de ligne de statut)
+    private Long readLag(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                return null;
+            }
+            ResultSetMetaData meta = rs.getMetaData();
+            int column = 1;
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                String name = meta.getColumnLabel(i);
+                if ("Seconds_Behind_Source".equalsIgnoreCase(name) || "Seconds_Behind_Master".equalsIgnoreCase(name)) {
+                    column = i;
+                    break;
+                }
+            }
+            long lag = rs.getLong(column);
+            return rs.wasNull() ? null : lag;
+        }
+    }
+}
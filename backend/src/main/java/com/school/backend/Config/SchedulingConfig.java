@@ -0,0 +1,9 @@
+package com.school.backend.Config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tâches périodiques (rafraîchissement des versions de jetons, etc.)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
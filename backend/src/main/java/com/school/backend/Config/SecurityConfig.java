@@ -1,7 +1,11 @@
 package com.school.backend.Config;
 
 import com.school.backend.Service.AuthService;
+import com.school.backend.Service.TokenVersionRegistry;
 import com.school.backend.Util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,7 +13,6 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -25,27 +28,40 @@ public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
     private final AuthService authService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final PasswordEncoder passwordEncoder;
+    private final RateLimitBucketStore bucketStore;
+    private final MeterRegistry meterRegistry;
+    private final boolean statelessAuth;
 
-    public SecurityConfig(JwtUtil jwtUtil, AuthService authService) {
+    public SecurityConfig(JwtUtil jwtUtil, AuthService authService, TokenVersionRegistry tokenVersionRegistry,
+                          PasswordEncoder passwordEncoder, RateLimitBucketStore bucketStore,
+                          MeterRegistry meterRegistry,
+                          @Value("${jwt.stateless:true}") boolean statelessAuth) {
         this.jwtUtil = jwtUtil;
         this.authService = authService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.passwordEncoder = passwordEncoder;
+        this.bucketStore = bucketStore;
+        this.meterRegistry = meterRegistry;
+        this.statelessAuth = statelessAuth;
     }
 
     @Bean
     public RateLimitingFilter rateLimitingFilter() {
-        return new RateLimitingFilter();
+        return new RateLimitingFilter(bucketStore, meterRegistry);
     }
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtUtil, authService);
+        return new JwtAuthenticationFilter(jwtUtil, authService, tokenVersionRegistry, statelessAuth);
     }
 
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(authService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
         return provider;
     }
 
@@ -61,7 +77,14 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Les envois d'un flux SSE repassent par un dispatch ASYNC déjà authentifié à l'ouverture
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // Seul un admin crée un admin dans une autre école que celle par défaut : la sienne
+                        .requestMatchers("/api/auth/admins").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                        // Seules les sondes sont publiques ; le scrape Prometheus (tags, volumes) exige un jeton admin
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/prometheus").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/students/**").hasAuthority("ROLE_ADMIN")
                         .anyRequest().authenticated()
                 )
@@ -72,11 +95,6 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
@@ -0,0 +1,59 @@
+package com.school.backend.Config;
+
+/**
+ * École (tenant) de la requête en cours, portée par le claim {@code tenant} du JWT.
+ * <p>
+ * Posée par {@link JwtAuthenticationFilter} pour la durée de la requête ; les traitements qui
+ * changent de thread (import asynchrone, export en streaming, flux SSE) capturent
+ * {@link #current()} au départ et la reposent avec {@link #callAs}. Hors requête (démarrage,
+ * tâches planifiées, tests) c'est {@link #DEFAULT_TENANT}, l'école des données d'avant le multi-écoles.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : DEFAULT_TENANT;
+    }
+
+    static void set(String tenant) {
+        CURRENT.set(tenant);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    // Tâche qui peut lever une exception vérifiée (ex. IOException d'un export en streaming)
+    @FunctionalInterface
+    public interface Task<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    public static <T, E extends Exception> T callAs(String tenant, Task<T, E> task) throws E {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            return task.call();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void runAs(String tenant, Runnable task) {
+        callAs(tenant, () -> {
+            task.run();
+            return null;
+        });
+    }
+}
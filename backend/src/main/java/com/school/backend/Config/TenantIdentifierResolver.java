@@ -0,0 +1,34 @@
+package com.school.backend.Config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Donne à Hibernate l'école courante ({@link TenantContext}) à l'ouverture de chaque session.
+ * Avec {@code @TenantId} sur {@code Student}, toutes les requêtes JPA (dérivées, JPQL, projections)
+ * reçoivent {@code tenant_id = ?} et chaque insertion prend l'école courante.
+ * Les requêtes JdbcTemplate (StudentJdbcRepository) passent l'école explicitement.
+ */
+@Component
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String>, HibernatePropertiesCustomizer {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return TenantContext.current();
+    }
+
+    // Une session (open-in-view) reste liée à l'école de la requête qui l'a ouverte
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+}
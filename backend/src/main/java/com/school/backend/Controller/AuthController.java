@@ -6,6 +6,7 @@ import com.school.backend.Service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -27,9 +28,26 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(request));
     }
 
+    // Déconnexion de toutes les sessions : invalide tous les JWT déjà émis pour l'admin courant
+    @PostMapping("/revoke")
+    public ResponseEntity<?> revoke(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Authentication required"));
+        }
+        authService.revokeTokens(authentication.getName());
+        return ResponseEntity.ok(Map.of("message", "All tokens revoked"));
+    }
+
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
         authService.register(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("message", "Admin created successfully"));
     }
+
+    // Ajout d'un admin à sa propre école (réservé aux admins, cf. SecurityConfig)
+    @PostMapping("/admins")
+    public ResponseEntity<?> provisionAdmin(@Valid @RequestBody RegisterRequest request) {
+        authService.provisionAdmin(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("message", "Admin created successfully"));
+    }
 }
\ No newline at end of file
@@ -1,15 +1,34 @@
 package com.school.backend.Controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.school.backend.Config.TenantContext;
 import com.school.backend.DTO.*;
 import com.school.backend.Entity.Level;
+import com.school.backend.Exception.BadRequestException;
+import com.school.backend.Service.LevelStatistics;
+import com.school.backend.Service.StudentEventBroadcaster;
+import com.school.backend.Service.StudentImportJobService;
 import com.school.backend.Service.StudentService;
+import com.school.backend.Service.StudentTableVersion;
+import com.school.backend.Util.CursorUtil;
 import jakarta.validation.Valid;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/students")
@@ -17,21 +36,141 @@ import org.springframework.web.multipart.MultipartFile;
 @PreAuthorize("hasAuthority('ROLE_ADMIN')")
 public class StudentController {
 
+    // Le navigateur garde la réponse mais la revalide à chaque fois (If-None-Match).
+    // Sans en-tête explicite, Spring Security imposerait no-store et il n'y aurait jamais d'ETag renvoyé.
+    // Les ETags sont envoyés faibles (W/) : Tomcat ne compresse jamais une réponse à ETag fort.
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final StudentService studentService;
+    private final StudentImportJobService importJobService;
+    private final StudentTableVersion tableVersion;
+    private final LevelStatistics levelStatistics;
+    private final StudentEventBroadcaster eventBroadcaster;
+    private final int streamingMinSize;
+    private final int maxPageSize;
 
-    public StudentController(StudentService studentService) {
+    public StudentController(StudentService studentService, StudentImportJobService importJobService,
+                             StudentTableVersion tableVersion, LevelStatistics levelStatistics,
+                             StudentEventBroadcaster eventBroadcaster,
+                             @Value("${student.page.streaming-min-size:1000}") int streamingMinSize,
+                             @Value("${student.page.max-size:10000}") int maxPageSize) {
         this.studentService = studentService;
+        this.importJobService = importJobService;
+        this.tableVersion = tableVersion;
+        this.levelStatistics = levelStatistics;
+        this.eventBroadcaster = eventBroadcaster;
+        this.streamingMinSize = streamingMinSize;
+        this.maxPageSize = maxPageSize;
     }
 
     // GET ALL + pagination + search + filter by level
+    // mode=prefix : usernames commençant par search (type-ahead, triés par username) ; par défaut : contient
+    // Sans recherche et à partir de student.page.streaming-min-size lignes, la page est écrite en flux
+    // (même JSON que PageResponse, voir StreamedPage).
     @GetMapping
-    public ResponseEntity<Page<StudentResponse>> getAll(
+    public ResponseEntity<?> getAll(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Level level,
+            @RequestParam(defaultValue = "contains") String mode,
+            WebRequest request) {
+
+        boolean prefix = switch (mode.toLowerCase(Locale.ROOT)) {
+            case "prefix" -> true;
+            case "contains" -> false;
+            default -> throw new BadRequestException("Unknown search mode: " + mode + " (expected contains or prefix)");
+        };
+        checkPage(page, size);
+        String variant = "page:" + page + ":" + size + ":" + search + ":" + level + ":" + prefix;
+        if (size >= streamingMinSize && (search == null || search.isBlank())) {
+            return conditional(request, variant, () -> new StreamedPage(studentService, page, size, level));
+        }
+        return conditional(request, variant, () -> PageResponse.of(prefix
+                ? studentService.getStudentsByPrefix(page, size, search, level)
+                : studentService.getAllStudents(page, size, search, level)));
+    }
+
+    // Corps sérialisé par Jackson directement dans la réponse, sur le thread de la requête :
+    // les lignes sont lues et écrites une à une, le buffer du générateur part au fil de l'eau.
+    private record StreamedPage(StudentService studentService, int page, int size, Level level)
+            implements JsonSerializable {
+
+        @Override
+        public void serialize(JsonGenerator json, SerializerProvider provider) throws IOException {
+            studentService.writePageJson(page, size, level, json);
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator json, SerializerProvider provider, TypeSerializer typeSer)
+                throws IOException {
+            serialize(json, provider);
+        }
+    }
+
+    // GET ALL sans COUNT(*) : ?slice=true → hasNext uniquement (+ total approximatif si approxTotal=true)
+    @GetMapping(params = {"slice=true", "!after", "!cursor"})
+    public ResponseEntity<StudentSliceResponse> getAllSlice(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String search,
-            @RequestParam(required = false) Level level) {
+            @RequestParam(required = false) Level level,
+            @RequestParam(defaultValue = "false") boolean approxTotal,
+            WebRequest request) {
+
+        checkPage(page, size);
+        return conditional(request, "slice:" + page + ":" + size + ":" + search + ":" + level + ":" + approxTotal,
+                () -> studentService.getStudentsSlice(page, size, search, level, approxTotal));
+    }
+
+    // GET ALL en keyset (seek) : ?after=<dernier id> → WHERE id > ? ORDER BY id LIMIT ?
+    @GetMapping(params = {"after", "!cursor"})
+    public ResponseEntity<StudentCursorResponse> getAllAfter(
+            @RequestParam Long after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Level level,
+            WebRequest request) {
+
+        checkSinglePagingMode(request);
+        checkPage(0, size);
+        return conditional(request, "after:" + after + ":" + size + ":" + search + ":" + level,
+                () -> studentService.getStudentsAfter(after, size, search, level));
+    }
+
+    // Même chose avec le jeton opaque renvoyé dans nextCursor
+    @GetMapping(params = "cursor")
+    public ResponseEntity<StudentCursorResponse> getAllFromCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Level level,
+            WebRequest request) {
+
+        checkSinglePagingMode(request);
+        Long after = CursorUtil.decode(cursor);
+        checkPage(0, size);
+        return conditional(request, "after:" + after + ":" + size + ":" + search + ":" + level,
+                () -> studentService.getStudentsAfter(after, size, search, level));
+    }
 
-        return ResponseEntity.ok(studentService.getAllStudents(page, size, search, level));
+    // Effectifs par niveau, depuis les compteurs en mémoire (aucun COUNT(*) par appel)
+    @GetMapping("/stats")
+    public ResponseEntity<StudentStatsResponse> stats() {
+        return ResponseEntity.ok(levelStatistics.snapshot());
+    }
+
+    // Flux SSE des créations / modifications / suppressions / imports (remplace le polling de la liste).
+    // Last-Event-ID : reprise après une déconnexion ; RESYNC si les messages manqués ne sont plus disponibles.
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return eventBroadcaster.subscribe(lastEventId);
+    }
+
+    // Statistiques du cache (hits / misses / évictions) pour le dimensionner
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, CacheStatsResponse>> cacheStats() {
+        return ResponseEntity.ok(studentService.getCacheStats());
     }
 
     // GET BY ID
@@ -61,22 +200,135 @@ public class StudentController {
         return ResponseEntity.noContent().build();
     }
 
+    // BATCH : créations / modifications / suppressions mélangées, une transaction, un résultat par opération
+    @PostMapping("/batch")
+    public ResponseEntity<StudentBatchResponse> batch(@Valid @RequestBody StudentBatchRequest request) {
+        return ResponseEntity.ok(studentService.applyBatch(request.operations()));
+    }
+
     // EXPORT CSV
     @GetMapping("/export/csv")
-    public ResponseEntity<ByteArrayResource> exportCsv() {
-        CsvExportResponse csv = studentService.exportToCsv();
-        byte[] bytes = csv.content().getBytes();
+    public ResponseEntity<StreamingResponseBody> exportCsv(WebRequest request) {
+        String etag = tableVersion.etag("export:csv");
+        if (notModified(request, etag)) {
+            return notModified(etag);
+        }
+        // Écrit directement dans la réponse : mémoire constante quel que soit le nombre d'étudiants.
+        // Le corps est écrit sur un autre thread : l'école de la requête y est reposée.
+        String tenant = TenantContext.current();
+        StreamingResponseBody body = out -> TenantContext.callAs(tenant, () -> {
+            studentService.exportToCsv(out);
+            return null;
+        });
 
         return ResponseEntity.ok()
+                .eTag(weak(etag))
+                .cacheControl(REVALIDATE)
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=students.csv")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(new ByteArrayResource(bytes));
+                .contentType(MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .body(body);
     }
 
-    // IMPORT CSV
+    // IMPORT CSV : un seul point d'entrée, le mode est validé comme celui de la recherche
+    // - par défaut : insertion seule, tout ou rien à la validation
+    // - ?mode=merge : niveau mis à jour pour les usernames existants, création des autres
+    // - ?async=true : 202 + id du job, traitement par lots commités (insertion seule)
     @PostMapping(value = "/import/csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<String> importCsv(@RequestParam("file") MultipartFile file) {
-        studentService.importFromCsv(file);
-        return ResponseEntity.ok("Students imported successfully");
+    public ResponseEntity<?> importCsv(@RequestParam("file") MultipartFile file,
+                                       @RequestParam(required = false) String mode,
+                                       @RequestParam(defaultValue = "false") boolean async) {
+        if (mode != null && !mode.equalsIgnoreCase("merge")) {
+            throw new BadRequestException("Unknown import mode: " + mode + " (expected merge)");
+        }
+        boolean merge = mode != null;
+        if (merge && async) {
+            throw new BadRequestException("mode=merge cannot be combined with async=true");
+        }
+        if (merge) {
+            return ResponseEntity.ok(studentService.mergeFromCsv(file));
+        }
+        if (async) {
+            ImportJobResponse job = importJobService.submit(file);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/students/import/" + job.jobId()))
+                    .body(job);
+        }
+        return ResponseEntity.ok(studentService.importFromCsv(file));
+    }
+
+    // Progression : lignes traitées, lignes/s, erreurs par ligne
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ImportJobResponse> importStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getJob(jobId));
+    }
+
+    // Annulation : effective entre deux lots, les lots déjà commités restent
+    @DeleteMapping("/import/{jobId}")
+    public ResponseEntity<ImportJobResponse> cancelImport(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.cancel(jobId));
+    }
+
+    // slice=true, after et cursor s'excluent : les mappings sont disjoints (sinon "Ambiguous handler
+    // methods" → 500) et le handler keyset qui reçoit un mélange le refuse au lieu d'en ignorer une partie
+    private static void checkSinglePagingMode(WebRequest request) {
+        boolean slice = "true".equalsIgnoreCase(request.getParameter("slice"));
+        if (slice || (request.getParameter("after") != null && request.getParameter("cursor") != null)) {
+            throw new BadRequestException("Use only one of slice=true, after or cursor");
+        }
+    }
+
+    // Mêmes bornes pour toutes les listes : size = 0 ferait boucler un client en keyset
+    // (hasNext sans nextCursor), une valeur négative finirait en 500 dans PageRequest / Limit
+    private void checkPage(int page, int size) {
+        if (page < 0) {
+            throw new BadRequestException("page must be >= 0");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new BadRequestException("size must be between 1 and " + maxPageSize);
+        }
+    }
+
+    // === GET CONDITIONNELS ===
+
+    // ETag calculé avant la lecture : 304 sans toucher au repository si la table n'a pas changé
+    private <T> ResponseEntity<T> conditional(WebRequest request, String variant, Supplier<T> body) {
+        String etag = tableVersion.etag(variant);
+        if (notModified(request, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(weak(etag))
+                .cacheControl(REVALIDATE)
+                .body(body.get());
+    }
+
+    // If-None-Match : liste d'ETags ou "*", comparaison faible (RFC 9110 §13.1.2)
+    private static boolean notModified(WebRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String quoted = "\"" + etag + "\"";
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(quoted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String weak(String etag) {
+        return "W/\"" + etag + "\"";
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(weak(etag))
+                .cacheControl(REVALIDATE)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package com.school.backend.DTO;
+
+public record CacheStatsResponse(
+        long size,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount
+) {}
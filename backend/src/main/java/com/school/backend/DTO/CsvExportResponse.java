@@ -1,3 +0,0 @@
-package com.school.backend.DTO;
-
-public record CsvExportResponse(String content) {}
\ No newline at end of file
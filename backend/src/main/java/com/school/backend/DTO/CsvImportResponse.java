@@ -0,0 +1,3 @@
+package com.school.backend.DTO;
+
+public record CsvImportResponse(int imported, long durationMs, double rowsPerSecond) {}
@@ -0,0 +1,4 @@
+package com.school.backend.DTO;
+
+// Import en fusion (mode=merge) : lignes créées, niveaux modifiés, lignes déjà à jour
+public record CsvMergeResponse(int inserted, int updated, int unchanged, long durationMs, double rowsPerSecond) {}
@@ -0,0 +1,20 @@
+package com.school.backend.DTO;
+
+import java.time.Instant;
+import java.util.List;
+
+// État d'un import CSV en arrière-plan (GET /api/students/import/{jobId})
+public record ImportJobResponse(
+        String jobId,
+        String status,          // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+        long processedRows,
+        long importedRows,
+        long failedRows,
+        double rowsPerSecond,
+        Instant startedAt,
+        Instant finishedAt,
+        String message,
+        List<LineError> errors  // les premières erreurs seulement (voir student.import.async.max-errors)
+) {
+    public record LineError(long line, String message) {}
+}
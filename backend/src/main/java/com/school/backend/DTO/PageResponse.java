@@ -0,0 +1,43 @@
+package com.school.backend.DTO;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+// Page exacte (GET /api/students) : les seuls champs lus par le front, sans pageable ni sort.
+// Format stable, contrairement à la sérialisation Jackson de PageImpl.
+public record PageResponse<T>(
+        List<T> content,
+        long totalElements,
+        int totalPages,
+        int number,
+        int size,
+        boolean first,
+        boolean last,
+        boolean empty
+) {
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getTotalElements(), page.getTotalPages(),
+                page.getNumber(), page.getSize(), page.isFirst(), page.isLast(), page.isEmpty());
+    }
+
+    public static <T> PageResponse<T> of(List<T> content, int number, int size, long totalElements) {
+        int totalPages = totalPages(size, totalElements);
+        return new PageResponse<>(content, totalElements, totalPages, number, size,
+                isFirst(number), isLast(number, totalPages), content.isEmpty());
+    }
+
+    // Mêmes règles que PageImpl (page numérotée à partir de 0) ; partagées avec la page JSON en streaming
+    public static int totalPages(int size, long totalElements) {
+        return size == 0 ? 1 : (int) Math.ceil((double) totalElements / size);
+    }
+
+    public static boolean isFirst(int number) {
+        return number == 0;
+    }
+
+    public static boolean isLast(int number, int totalPages) {
+        return number + 1 >= totalPages;
+    }
+}
@@ -0,0 +1,14 @@
+package com.school.backend.DTO;
+
+import com.school.backend.Entity.Level;
+
+// Une opération du lot : CREATE (username, level), UPDATE (id, username, level) ou DELETE (id).
+// Validée élément par élément par le service : une opération invalide n'échoue pas tout le lot.
+public record StudentBatchOperation(
+        Type op,
+        Long id,
+        String username,
+        Level level
+) {
+    public enum Type { CREATE, UPDATE, DELETE }
+}
@@ -0,0 +1,12 @@
+package com.school.backend.DTO;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record StudentBatchRequest(
+        @NotEmpty(message = "At least one operation is required")
+        @Size(max = 1000, message = "A batch must not exceed 1000 operations")
+        List<StudentBatchOperation> operations
+) {}
@@ -0,0 +1,24 @@
+package com.school.backend.DTO;
+
+import java.util.List;
+
+// Un résultat par opération, dans l'ordre de la requête
+public record StudentBatchResponse(
+        List<Item> results,
+        int succeeded,
+        int failed
+) {
+    // status : CREATED / UPDATED / DELETED, ou le code d'erreur (BAD_REQUEST, NOT_FOUND, CONFLICT)
+    public record Item(
+            int index,
+            StudentBatchOperation.Type op,
+            Long id,
+            String status,
+            String message,
+            StudentResponse student
+    ) {
+        public boolean success() {
+            return message == null;
+        }
+    }
+}
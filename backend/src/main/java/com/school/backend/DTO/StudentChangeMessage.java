@@ -0,0 +1,12 @@
+package com.school.backend.DTO;
+
+// Message du flux SSE GET /api/students/events.
+// type : CREATED, UPDATED, DELETED (before / after renseignés comme StudentChangedEvent),
+// IMPORTED (count lignes ajoutées, pas de détail) ou RESYNC (messages perdus : recharger la liste).
+public record StudentChangeMessage(
+        long eventId,
+        String type,
+        StudentResponse before,
+        StudentResponse after,
+        int count
+) {}
@@ -0,0 +1,12 @@
+package com.school.backend.DTO;
+
+import java.util.List;
+
+// Page "keyset" : pas de numéro de page ni de total, seulement de quoi demander la suite
+public record StudentCursorResponse(
+        List<StudentResponse> content,
+        int size,
+        boolean hasNext,
+        Long lastId,
+        String nextCursor
+) {}
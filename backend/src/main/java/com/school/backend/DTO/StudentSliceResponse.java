@@ -0,0 +1,13 @@
+package com.school.backend.DTO;
+
+import java.util.List;
+
+// Page sans total exact : hasNext suffit pour "page suivante" ;
+// approximateTotal (optionnel, peut être null) vient des statistiques et non d'un COUNT(*)
+public record StudentSliceResponse(
+        List<StudentResponse> content,
+        int page,
+        int size,
+        boolean hasNext,
+        Long approximateTotal
+) {}
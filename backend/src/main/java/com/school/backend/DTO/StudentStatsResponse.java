@@ -0,0 +1,13 @@
+package com.school.backend.DTO;
+
+import com.school.backend.Entity.Level;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Effectifs par niveau (GET /api/students/stats), servis depuis la mémoire
+public record StudentStatsResponse(
+        long total,
+        Map<Level, Long> byLevel,
+        Instant reconciledAt
+) {}
@@ -1,8 +1,10 @@
 // src/main/java/com/school/backend/Entity/Admin.java
 package com.school.backend.Entity;
 
+import com.school.backend.Config.TenantContext;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,6 +29,17 @@ public class Admin implements UserDetails {
     @Column(nullable = false)
     private String password;
 
+    // École administrée, recopiée dans le claim "tenant" de ses JWT
+    @Column(name = "tenant_id", nullable = false, length = 64)
+    @ColumnDefault("'" + TenantContext.DEFAULT_TENANT + "'")
+    @Builder.Default
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+
+    // Incrémenté pour révoquer tous les JWT déjà émis (claim "ver")
+    @Column(name = "token_version", nullable = false)
+    @ColumnDefault("0")
+    private int tokenVersion;
+
     // SETTERS MANUELS – LOMBOK NE MARCHE PLUS CHEZ TOI
     public void setUsername(String username) {
         this.username = username;
@@ -45,6 +58,22 @@ public class Admin implements UserDetails {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     @Override public String getPassword() { return password; }
     @Override public String getUsername() { return username; }
     @Override public boolean isAccountNonExpired() { return true; }
@@ -1,22 +1,62 @@
 package com.school.backend.Entity;
 
+import com.school.backend.Config.TenantContext;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+import java.util.Locale;
 
 @Entity
-@Table(name = "students", uniqueConstraints = @UniqueConstraint(columnNames = "username"))
-@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+// Toutes les lectures portent "tenant_id = ?" : chaque index commence par tenant_id pour ne parcourir
+// que les lignes de l'école (InnoDB ajoute id en fin de chaque index secondaire).
+@Table(name = "students",
+        // username unique par école (deux écoles peuvent avoir le même)
+        uniqueConstraints = @UniqueConstraint(name = "uk_students_tenant_username", columnNames = {"tenant_id", "username"}),
+        indexes = {
+                // (tenant_id, id) : liste complète triée par id et keyset "id > ?"
+                @Index(name = "idx_students_tenant", columnList = "tenant_id"),
+                // (tenant_id, level, id) : filtre par niveau ET keyset
+                @Index(name = "idx_students_tenant_level", columnList = "tenant_id, level"),
+                // Recherches insensibles à la casse sans LOWER() sur la colonne : égalité et préfixe (LIKE 'term%')
+                @Index(name = "idx_students_tenant_username_normalized", columnList = "tenant_id, username_normalized")
+        })
+@Getter @Setter @NoArgsConstructor
 public class Student {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    // École propriétaire : posée par Hibernate à l'insertion et ajoutée à chaque requête (TenantIdentifierResolver)
+    @TenantId
+    @Setter(AccessLevel.NONE)
+    @Column(name = "tenant_id", nullable = false, length = 64, updatable = false)
+    @ColumnDefault("'" + TenantContext.DEFAULT_TENANT + "'")
+    private String tenantId;
+
+    @Column(nullable = false)
     private String username;
 
+    // Copie en minuscules de username, tenue à jour par l'entité (et par StudentJdbcRepository).
+    // Nullable en base : les lignes existantes sont remplies au démarrage par NormalizedUsernameBackfill.
+    @Setter(AccessLevel.NONE)
+    @Column(name = "username_normalized")
+    private String usernameNormalized;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Level level;
 
+    public Student(Long id, String username, Level level) {
+        this.id = id;
+        this.level = level;
+        setUsername(username);
+    }
+
+    public static String normalize(String username) {
+        return username == null ? null : username.toLowerCase(Locale.ROOT);
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -33,6 +73,11 @@ public class Student {
 
     public void setUsername(String username) {
         this.username = username;
+        this.usernameNormalized = normalize(username);
+    }
+
+    public String getUsernameNormalized() {
+        return usernameNormalized;
     }
 
     public Level getLevel() {
@@ -42,4 +87,10 @@ public class Student {
     public void setLevel(Level level) {
         this.level = level;
     }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeUsername() {
+        usernameNormalized = normalize(username);
+    }
 }
@@ -0,0 +1,20 @@
+package com.school.backend.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Version des données students d'une école, incrémentée dans chaque transaction d'écriture
+// (StudentJdbcRepository.bumpVersion) : ETag partagé par toutes les instances.
+// Table créée par ddl-auto ; lue et écrite uniquement en JDBC.
+@Entity
+@Table(name = "student_versions")
+@Getter @NoArgsConstructor
+public class StudentVersion {
+
+    @Id
+    @Column(name = "tenant_id", length = 64)
+    private String tenantId;
+
+    @Column(nullable = false)
+    private long version;
+}
@@ -0,0 +1,24 @@
+package com.school.backend.Event;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentResponse;
+
+// Publié par StudentService après chaque écriture unitaire réussie.
+// before = état avant (UPDATED, DELETED), after = état après (CREATED, UPDATED).
+// tenantId = école de l'étudiant (celle de la requête qui écrit).
+public record StudentChangedEvent(String tenantId, Type type, StudentResponse before, StudentResponse after) {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    public static StudentChangedEvent created(StudentResponse after) {
+        return new StudentChangedEvent(TenantContext.current(), Type.CREATED, null, after);
+    }
+
+    public static StudentChangedEvent updated(StudentResponse before, StudentResponse after) {
+        return new StudentChangedEvent(TenantContext.current(), Type.UPDATED, before, after);
+    }
+
+    public static StudentChangedEvent deleted(StudentResponse before) {
+        return new StudentChangedEvent(TenantContext.current(), Type.DELETED, before, null);
+    }
+}
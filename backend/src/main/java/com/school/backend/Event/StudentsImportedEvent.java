@@ -0,0 +1,14 @@
+package com.school.backend.Event;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentResponse;
+
+import java.util.List;
+
+// Publié une fois par lot importé et commité (ids générés inclus), pour l'école de l'import
+public record StudentsImportedEvent(String tenantId, List<StudentResponse> students) {
+
+    public StudentsImportedEvent(List<StudentResponse> students) {
+        this(TenantContext.current(), students);
+    }
+}
@@ -0,0 +1,20 @@
+package com.school.backend.Exception;
+
+import com.school.backend.DTO.ImportJobResponse;
+
+import java.util.List;
+
+// 400 + erreurs par ligne : import CSV synchrone rejeté (rien n'est écrit)
+public class CsvValidationException extends BadRequestException {
+
+    private final List<ImportJobResponse.LineError> errors;
+
+    public CsvValidationException(String message, List<ImportJobResponse.LineError> errors) {
+        super(message);
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<ImportJobResponse.LineError> getErrors() {
+        return errors;
+    }
+}
@@ -1,5 +1,8 @@
 package com.school.backend.Exception;
 
+import com.school.backend.DTO.ImportJobResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -7,13 +10,18 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
     record ErrorResponse(String code, String message) {}
 
+    record LineErrorsResponse(String code, String message, List<ImportJobResponse.LineError> errors) {}
+
     // 400 - Validation errors (@Valid)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationErrors(MethodArgumentNotValidException ex) {
@@ -44,6 +52,29 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("BAD_REQUEST", ex.getMessage()));
     }
 
+    // 400 - Import CSV rejeté : une entrée par ligne invalide
+    @ExceptionHandler(CsvValidationException.class)
+    public ResponseEntity<LineErrorsResponse> handleCsvValidation(CsvValidationException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new LineErrorsResponse("BAD_REQUEST", ex.getMessage(), ex.getErrors()));
+    }
+
+    // 503 - Ressource bornée saturée (pool BCrypt…) → le client réessaie après Retry-After
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleBusy(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse("SERVICE_UNAVAILABLE", ex.getMessage()));
+    }
+
+    // 429 - Trop de tentatives (limite par username sur le login)
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse("TOO_MANY_REQUESTS", ex.getMessage()));
+    }
+
     // IMPORTANT : Laisse passer ResponseStatusException (409, 400, etc.) → Spring les gère parfaitement
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<ErrorResponse> handleResponseStatus(ResponseStatusException ex) {
@@ -61,12 +92,13 @@ public class GlobalExceptionHandler {
                 ex instanceof MethodArgumentNotValidException ||
                 ex instanceof ResourceNotFoundException ||
                 ex instanceof ConflictException ||
-                ex instanceof BadRequestException) {
+                ex instanceof BadRequestException ||
+                ex instanceof ServiceBusyException ||
+                ex instanceof TooManyRequestsException) {
             return null; // Laisse un autre handler s'en occuper
         }
 
-        System.err.println("Unexpected internal error: " + ex.getMessage());
-        ex.printStackTrace();
+        log.error("Unexpected internal error: {}", ex.getMessage(), ex);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ErrorResponse("INTERNAL_ERROR", "An unexpected error occurred."));
     }
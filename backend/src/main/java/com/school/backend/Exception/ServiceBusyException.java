@@ -0,0 +1,16 @@
+package com.school.backend.Exception;
+
+// 503 + Retry-After : une ressource bornée (ex. pool de hachage BCrypt) est saturée
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,16 @@
+package com.school.backend.Exception;
+
+// 429 + Retry-After : limite de débit atteinte (ex. tentatives de login par username)
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
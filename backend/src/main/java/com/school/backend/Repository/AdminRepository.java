@@ -2,9 +2,28 @@ package com.school.backend.Repository;
 
 import com.school.backend.Entity.Admin;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 import java.util.Optional;
 public interface AdminRepository extends JpaRepository<Admin, Long> {
     Optional<Admin> findByUsername(String username);
     boolean existsByUsername(String username);
-}
 
+    // Table username → version de jeton, rechargée périodiquement en mémoire
+    @Query("select a.username as username, a.tokenVersion as tokenVersion from Admin a")
+    List<TokenVersion> findAllTokenVersions();
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update Admin a set a.tokenVersion = a.tokenVersion + 1 where a.username = :username")
+    int incrementTokenVersion(@Param("username") String username);
+
+    interface TokenVersion {
+        String getUsername();
+        int getTokenVersion();
+    }
+}
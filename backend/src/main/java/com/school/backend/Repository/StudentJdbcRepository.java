@@ -0,0 +1,253 @@
+package com.school.backend.Repository;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Entity.Student;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Écritures en masse sur la table students via JDBC.
+// Hibernate ne sait pas regrouper les INSERT avec GenerationType.IDENTITY :
+// ici un lot = un seul executeBatch, réécrit en INSERT multi-lignes par le driver
+// MySQL (rewriteBatchedStatements=true), et les ids générés sont quand même récupérés.
+@Repository
+public class StudentJdbcRepository {
+
+    // JdbcTemplate ne passe pas par le filtre @TenantId d'Hibernate : l'école courante est explicite
+    private static final String INSERT_SQL =
+            "INSERT INTO students (tenant_id, username, username_normalized, level) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE students SET username = ?, username_normalized = ?, level = ? WHERE id = ? AND tenant_id = ?";
+    // Lignes antérieures à la colonne username_normalized, remplies par petits lots (verrous courts)
+    private static final String BACKFILL_SQL =
+            "UPDATE students SET username_normalized = LOWER(username) WHERE username_normalized IS NULL LIMIT ?";
+    private static final String DELETE_SQL = "DELETE FROM students WHERE id = ? AND tenant_id = ?";
+    // Import en fusion : un username existant (clé unique tenant_id + username) prend le niveau du fichier.
+    // VALUES(level) plutôt que l'alias de ligne de MySQL 8.0.19+ : compris aussi par H2 en mode MySQL.
+    private static final String UPSERT_SQL = INSERT_SQL + " ON DUPLICATE KEY UPDATE level = VALUES(level)";
+    private static final String FIND_BY_NORMALIZED_SQL =
+            "SELECT id, username, username_normalized, level FROM students WHERE tenant_id = ? AND username_normalized IN (";
+    // Page de l'école courante lue en flux (GET /api/students en JSON streamé)
+    private static final String PAGE_SQL =
+            "SELECT id, username, level FROM students WHERE tenant_id = ? ORDER BY id LIMIT ? OFFSET ?";
+    private static final String PAGE_BY_LEVEL_SQL =
+            "SELECT id, username, level FROM students WHERE tenant_id = ? AND level = ? ORDER BY id LIMIT ? OFFSET ?";
+    // Parcours de toutes les écoles : chargement des structures en mémoire (index, filtre, compteurs)
+    private static final String SCAN_SQL = "SELECT tenant_id, id, username, level FROM students ORDER BY id";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM students";
+    // Version de l'école (ETag) : une ligne par école, incrémentée dans la transaction qui écrit
+    private static final String BUMP_VERSION_SQL =
+            "INSERT INTO student_versions (tenant_id, version) VALUES (?, 1) ON DUPLICATE KEY UPDATE version = version + 1";
+    private static final String VERSION_SQL = "SELECT version FROM student_versions WHERE tenant_id = ?";
+    private static final String COUNT_BY_LEVEL_SQL =
+            "SELECT tenant_id, level, COUNT(*) FROM students GROUP BY tenant_id, level";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Incréments de version de chaque école commités par CETTE instance (et commits en cours) :
+    // le reste de l'avance de la version vient d'ailleurs (StudentEventBroadcaster)
+    private final Map<String, LocalBumps> localBumps = new ConcurrentHashMap<>();
+
+    public record LevelCount(String tenantId, Level level, long count) {}
+
+    private static final class LocalBumps {
+        final AtomicLong committed = new AtomicLong();
+        final AtomicInteger committing = new AtomicInteger();
+    }
+
+    public StudentJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Un appel = un lot = une transaction (commit par lot)
+    @Transactional
+    public void insertBatch(List<Student> students) {
+        String tenant = TenantContext.current();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Student s = students.get(i);
+                        ps.setString(1, tenant);
+                        ps.setString(2, s.getUsername());
+                        ps.setString(3, Student.normalize(s.getUsername()));
+                        ps.setString(4, s.getLevel().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return students.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < keys.size() && i < students.size(); i++) {
+            Object id = keys.get(i).values().iterator().next();
+            students.get(i).setId(((Number) id).longValue());
+        }
+    }
+
+    @Transactional
+    public void updateBatch(List<Student> students) {
+        String tenant = TenantContext.current();
+        jdbcTemplate.batchUpdate(UPDATE_SQL, students, students.size(), (ps, s) -> {
+            ps.setString(1, s.getUsername());
+            ps.setString(2, Student.normalize(s.getUsername()));
+            ps.setString(3, s.getLevel().name());
+            ps.setLong(4, s.getId());
+            ps.setString(5, tenant);
+        });
+    }
+
+    // Un seul executeBatch, réécrit en INSERT multi-lignes par le driver (rewriteBatchedStatements=true).
+    // Pas d'ids générés : ils ne sont pas fiables avec ON DUPLICATE KEY UPDATE sur plusieurs lignes.
+    // À appeler dans la transaction du lot.
+    public void upsertBatch(List<Student> students) {
+        String tenant = TenantContext.current();
+        jdbcTemplate.batchUpdate(UPSERT_SQL, students, students.size(), (ps, s) -> {
+            ps.setString(1, tenant);
+            ps.setString(2, s.getUsername());
+            ps.setString(3, Student.normalize(s.getUsername()));
+            ps.setString(4, s.getLevel().name());
+        });
+    }
+
+    // Étudiants de l'école courante par username normalisé (un IN (...) servi par l'index)
+    public Map<String, StudentResponse> findByNormalizedUsernames(Collection<String> normalized) {
+        Map<String, StudentResponse> found = new HashMap<>();
+        if (normalized.isEmpty()) {
+            return found;
+        }
+        String sql = FIND_BY_NORMALIZED_SQL + String.join(",", Collections.nCopies(normalized.size(), "?")) + ")";
+        List<Object> args = new ArrayList<>(normalized.size() + 1);
+        args.add(TenantContext.current());
+        args.addAll(normalized);
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> found.put(rs.getString(3),
+                new StudentResponse(rs.getLong(1), rs.getString(2), Level.valueOf(rs.getString(4)))), args.toArray());
+        return found;
+    }
+
+    @Transactional
+    public void deleteBatch(List<Long> ids) {
+        String tenant = TenantContext.current();
+        jdbcTemplate.batchUpdate(DELETE_SQL, ids, ids.size(), (ps, id) -> {
+            ps.setLong(1, id);
+            ps.setString(2, tenant);
+        });
+    }
+
+    // Un appel = un lot commité ; renvoie le nombre de lignes remplies (0 = terminé)
+    @Transactional
+    public int backfillNormalizedUsernames(int limit) {
+        return jdbcTemplate.update(BACKFILL_SQL, limit);
+    }
+
+    // Lignes [offset, offset + limit) de l'école courante, au niveau level si non null,
+    // passées une à une au consumer à mesure que le driver les lit (aucune liste intermédiaire)
+    public void scanPage(Level level, long offset, int limit, Consumer<StudentResponse> consumer) {
+        String tenant = TenantContext.current();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(level != null ? PAGE_BY_LEVEL_SQL : PAGE_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            int i = 1;
+            ps.setString(i++, tenant);
+            if (level != null) {
+                ps.setString(i++, level.name());
+            }
+            ps.setInt(i++, limit);
+            ps.setLong(i, offset);
+            ps.setFetchSize(1000);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(
+                new StudentResponse(rs.getLong(1), rs.getString(2), Level.valueOf(rs.getString(3)))));
+    }
+
+    // À appeler en fin de transaction d'écriture : la ligne reste verrouillée jusqu'au commit,
+    // les écritures concurrentes d'une même école s'y sérialisent
+    public void bumpVersion() {
+        String tenant = TenantContext.current();
+        jdbcTemplate.update(BUMP_VERSION_SQL, tenant);
+        LocalBumps bumps = localBumps.computeIfAbsent(tenant, t -> new LocalBumps());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumps.committed.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                committing = true;
+                bumps.committing.incrementAndGet();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    bumps.committed.incrementAndGet();
+                }
+                if (committing) {
+                    bumps.committing.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    // Incréments commités ici pour l'école ; -1 pendant qu'un commit de l'école est en cours (à relire)
+    public long localVersionBumps(String tenant) {
+        LocalBumps bumps = localBumps.get(tenant);
+        if (bumps == null) {
+            return 0;
+        }
+        return bumps.committing.get() > 0 ? -1 : bumps.committed.get();
+    }
+
+    // 0 tant que l'école n'a jamais écrit
+    public long findVersion() {
+        List<Long> version = jdbcTemplate.queryForList(VERSION_SQL, Long.class, TenantContext.current());
+        return version.isEmpty() ? 0 : version.get(0);
+    }
+
+    // === TOUTES ÉCOLES (structures en mémoire) ===
+
+    // Lecture en flux (fetch size du driver), une ligne à la fois : (école, étudiant)
+    public void scanAll(BiConsumer<String, StudentResponse> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SCAN_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(1000);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getString(1),
+                new StudentResponse(rs.getLong(2), rs.getString(3), Level.valueOf(rs.getString(4)))));
+    }
+
+    public long countAll() {
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        return count != null ? count : 0;
+    }
+
+    public List<LevelCount> countByTenantAndLevel() {
+        return jdbcTemplate.query(COUNT_BY_LEVEL_SQL, (rs, i) ->
+                new LevelCount(rs.getString(1), Level.valueOf(rs.getString(2)), rs.getLong(3)));
+    }
+}
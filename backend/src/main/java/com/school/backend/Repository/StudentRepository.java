@@ -1,31 +1,99 @@
 // src/main/java/com/school/backend/Repository/StudentRepository.java
 package com.school.backend.Repository;
 
+import com.school.backend.DTO.StudentResponse;
 import com.school.backend.Entity.Level;
 import com.school.backend.Entity.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
 
+    // Toutes les requêtes de ce repository sont limitées à l'école courante (@TenantId sur Student).
+    // Les parcours de toutes les écoles passent par StudentJdbcRepository.
+
+    // === CHEMIN DE LECTURE DE LA LISTE ===
+    // Projection directe en StudentResponse : Spring Data génère un "select new StudentResponse(id, username, level)",
+    // sans entité managée (ni hydratation, ni snapshot pour le dirty checking, ni entrée dans le contexte de persistance).
+
+    // Liste complète paginée
+    Page<StudentResponse> findAllBy(Pageable pageable);
+
     // Recherche partielle (insensible à la casse)
-    Page<Student> findByUsernameContainingIgnoreCase(String search, Pageable pageable);
+    Page<StudentResponse> findByUsernameContainingIgnoreCase(String search, Pageable pageable);
 
     // Filtre par niveau
-    Page<Student> findByLevel(Level level, Pageable pageable);
+    Page<StudentResponse> findByLevel(Level level, Pageable pageable);
 
     // Recherche + filtre combinés
-    Page<Student> findByUsernameContainingIgnoreCaseAndLevel(
+    Page<StudentResponse> findByUsernameContainingIgnoreCaseAndLevel(
+            String search, Level level, Pageable pageable);
+
+    // Recherche par préfixe (type-ahead) : username_normalized LIKE 'term%' → parcours d'intervalle
+    // sur idx_students_tenant_username_normalized (tenant_id, username_normalized)
+    Page<StudentResponse> findByUsernameNormalizedStartingWith(String prefix, Pageable pageable);
+
+    Page<StudentResponse> findByUsernameNormalizedStartingWithAndLevel(String prefix, Level level, Pageable pageable);
+
+    // Variantes "Slice" : une seule requête (LIMIT size + 1), pas de COUNT(*)
+    Slice<StudentResponse> findSliceBy(Pageable pageable);
+
+    Slice<StudentResponse> findSliceByLevel(Level level, Pageable pageable);
+
+    Slice<StudentResponse> findSliceByUsernameContainingIgnoreCase(String search, Pageable pageable);
+
+    Slice<StudentResponse> findSliceByUsernameContainingIgnoreCaseAndLevel(
             String search, Level level, Pageable pageable);
 
+    // Pagination keyset (seek) : WHERE id > ? ORDER BY id LIMIT ? → même coût quelle que soit la page
+    List<StudentResponse> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<StudentResponse> findByIdGreaterThanAndLevelOrderByIdAsc(Long id, Level level, Limit limit);
+
+    List<StudentResponse> findByIdGreaterThanAndUsernameContainingIgnoreCaseOrderByIdAsc(
+            Long id, String search, Limit limit);
+
+    List<StudentResponse> findByIdGreaterThanAndUsernameContainingIgnoreCaseAndLevelOrderByIdAsc(
+            Long id, String search, Level level, Limit limit);
+
+    // Lecture unitaire (défaut de cache) et ids résolus par l'index de trigrammes
+    Optional<StudentResponse> findResponseById(Long id);
+
+    List<StudentResponse> findByIdIn(Collection<Long> ids);
+
     // RECHERCHE EXACTE PAR USERNAME (TRÈS IMPORTANT !)
     Optional<Student> findByUsername(String username);
 
-    // Vérification d’existence par username (utilisé dans le service)
-    boolean existsByUsername(String username);
-}
\ No newline at end of file
+    // Total exact de la page JSON streamée (le count() sans filtre vient de JpaRepository)
+    long countByLevel(Level level);
+
+    // Vérification d’existence insensible à la casse, servie par l'index (pas de LOWER() sur la colonne)
+    boolean existsByUsernameNormalized(String usernameNormalized);
+
+    // Doublons en une requête par lot : WHERE username_normalized IN (...), même clé que
+    // existsByUsernameNormalized et la fusion CSV. Entrées et résultats normalisés (Student.normalize).
+    @Query("select s.usernameNormalized from Student s where s.usernameNormalized in :usernames")
+    List<String> findExistingNormalizedUsernames(@Param("usernames") Collection<String> normalizedUsernames);
+
+    // Export CSV en streaming : projection directe (pas d'entités managées) lue par curseur.
+    // Le fetch size n'est respecté par MySQL qu'avec useCursorFetch=true dans l'URL JDBC.
+    // À consommer dans une transaction et à fermer (try-with-resources).
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.school.backend.DTO.StudentResponse(s.id, s.username, s.level) from Student s order by s.id")
+    Stream<StudentResponse> streamAllForExport();
+}
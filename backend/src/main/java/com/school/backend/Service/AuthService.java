@@ -1,25 +1,48 @@
 package com.school.backend.Service;
 
+import com.school.backend.Config.RateLimitBucketStore;
+import com.school.backend.Config.RateLimitingFilter;
+import com.school.backend.Config.TenantContext;
 import com.school.backend.DTO.*;
 import com.school.backend.Entity.Admin;
+import com.school.backend.Exception.TooManyRequestsException;
 import com.school.backend.Repository.AdminRepository;
 import com.school.backend.Util.JwtUtil;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.*;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 @Service
+@Timed(value = "auth.service", description = "Appels de AuthService, par méthode")
 public class AuthService implements UserDetailsService {
 
     private final AdminRepository adminRepository;
     private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final PasswordHashingService passwordHashing;
+    private final RateLimitBucketStore rateLimitBuckets;
+    private final Counter userRateLimitRejections;
 
     // ON SUPPRIME AuthenticationManager DU CONSTRUCTEUR
-    public AuthService(AdminRepository adminRepository, JwtUtil jwtUtil) {
+    public AuthService(AdminRepository adminRepository, JwtUtil jwtUtil, TokenVersionRegistry tokenVersionRegistry,
+                       PasswordHashingService passwordHashing, RateLimitBucketStore rateLimitBuckets,
+                       MeterRegistry meterRegistry) {
         this.adminRepository = adminRepository;
         this.jwtUtil = jwtUtil;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.passwordHashing = passwordHashing;
+        this.rateLimitBuckets = rateLimitBuckets;
+        this.userRateLimitRejections = RateLimitingFilter.rejections(meterRegistry, "user");
     }
 
     @Override
@@ -29,17 +52,46 @@ public class AuthService implements UserDetailsService {
     }
 
     public AuthResponse login(LoginRequest request) {
-        Admin admin = adminRepository.findByUsername(request.username())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid username or password"));
+        // Limite par username, en plus de la limite par IP du RateLimitingFilter :
+        // bloque le bourrage d'identifiants réparti sur plusieurs IP, avant tout BCrypt
+        if (request.username() != null) {
+            ConsumptionProbe probe = rateLimitBuckets.bucket("user:" + request.username().toLowerCase(Locale.ROOT))
+                    .tryConsumeAndReturnRemaining(1);
+            if (!probe.isConsumed()) {
+                userRateLimitRejections.increment();
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()));
+                throw new TooManyRequestsException("Too many login attempts for this account. Please try again later.", retryAfter);
+            }
+        }
+
+        Optional<Admin> found = adminRepository.findByUsername(request.username());
 
-        if (!new BCryptPasswordEncoder().matches(request.password(), admin.getPassword())) {
+        // Username inconnu : on paie quand même un BCrypt → même temps de réponse, pas d'énumération
+        boolean valid = found.isPresent()
+                ? passwordHashing.matches(request.password(), found.get().getPassword())
+                : passwordHashing.matchesUnknownUser(request.password());
+        if (!valid) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid username or password");
         }
+        Admin admin = found.get();
 
+        tokenVersionRegistry.record(admin.getUsername(), admin.getTokenVersion());
         String token = jwtUtil.generateToken(admin);
         return new AuthResponse(token);
     }
 
+    // Révoque tous les jetons déjà émis pour cet admin (sur les autres instances : au prochain rafraîchissement)
+    // Incrément et relecture dans la même transaction en écriture : la relecture part sur le primaire
+    // (et non un réplica en retard) et voit la version tout juste écrite.
+    @Transactional
+    public void revokeTokens(String username) {
+        if (adminRepository.incrementTokenVersion(username) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Admin not found");
+        }
+        adminRepository.findByUsername(username)
+                .ifPresent(admin -> tokenVersionRegistry.record(username, admin.getTokenVersion()));
+    }
+
 
 
 
@@ -47,14 +99,25 @@ public class AuthService implements UserDetailsService {
 
 
 
+    // Inscription publique : toujours dans l'école par défaut, jamais une école choisie par le client
     public void register(RegisterRequest request) {
+        createAdmin(request, TenantContext.DEFAULT_TENANT);
+    }
+
+    // Nouvel admin dans l'école de l'admin connecté (claim "tenant" de son JWT, posé par le filtre)
+    public void provisionAdmin(RegisterRequest request) {
+        createAdmin(request, TenantContext.current());
+    }
+
+    private void createAdmin(RegisterRequest request, String tenant) {
         if (adminRepository.existsByUsername(request.username())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Username already exists");
         }
 
         Admin admin = new Admin();
         admin.setUsername(request.username());
-        admin.setPassword(new BCryptPasswordEncoder().encode(request.password()));
+        admin.setPassword(passwordHashing.encode(request.password()));
+        admin.setTenantId(tenant);
         adminRepository.save(admin);
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.school.backend.Service;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.DTO.StudentStatsResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Repository.StudentJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Effectifs par niveau tenus en mémoire, par école : un LongAdder par Level (indexé par ordinal),
+// chargés par un seul GROUP BY au démarrage puis tenus à jour par les événements d'écriture.
+// Une réconciliation périodique avec la base corrige toute dérive (écriture hors application,
+// autre instance) ; elle est reportée si une écriture arrive pendant sa requête.
+@Component
+public class LevelStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(LevelStatistics.class);
+
+    private static final Level[] LEVELS = Level.values();
+
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final ConcurrentHashMap<String, LongAdder[]> counts = new ConcurrentHashMap<>();
+    // Nombre d'événements appliqués : détecte une écriture concurrente à la réconciliation
+    private final AtomicLong changes = new AtomicLong();
+    private volatile Instant reconciledAt;
+
+    public LevelStatistics(StudentJdbcRepository studentJdbcRepository) {
+        this.studentJdbcRepository = studentJdbcRepository;
+    }
+
+    // Effectifs de l'école courante
+    public StudentStatsResponse snapshot() {
+        if (reconciledAt == null) {
+            reconcile(); // premier appel avant la fin du démarrage
+        }
+        LongAdder[] tenantCounts = counts(TenantContext.current());
+        Map<Level, Long> byLevel = new EnumMap<>(Level.class);
+        long total = 0;
+        for (Level level : LEVELS) {
+            long count = Math.max(0, tenantCounts[level.ordinal()].sum());
+            byLevel.put(level, count);
+            total += count;
+        }
+        return new StudentStatsResponse(total, byLevel, reconciledAt);
+    }
+
+    // Nombre d'étudiants de l'école courante, sans requête SQL
+    public long total() {
+        return snapshot().total();
+    }
+
+    private LongAdder[] counts(String tenant) {
+        return counts.computeIfAbsent(tenant, t -> {
+            LongAdder[] adders = new LongAdder[LEVELS.length];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        });
+    }
+
+    // === SYNCHRONISATION AVEC LES ÉCRITURES ===
+
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> increment(event.tenantId(), event.after(), 1);
+            case DELETED -> increment(event.tenantId(), event.before(), -1);
+            case UPDATED -> {
+                if (event.before().level() != event.after().level()) {
+                    increment(event.tenantId(), event.before(), -1);
+                    increment(event.tenantId(), event.after(), 1);
+                }
+            }
+        }
+        changes.incrementAndGet();
+    }
+
+    @EventListener
+    public void onStudentsImported(StudentsImportedEvent event) {
+        LongAdder[] tenantCounts = counts(event.tenantId());
+        event.students().forEach(s -> tenantCounts[s.level().ordinal()].increment());
+        changes.incrementAndGet();
+    }
+
+    private void increment(String tenant, StudentResponse student, int delta) {
+        counts(tenant)[student.level().ordinal()].add(delta);
+    }
+
+    // === RÉCONCILIATION ===
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${student.stats.reconcile-ms:300000}",
+            initialDelayString = "${student.stats.reconcile-ms:300000}")
+    public synchronized void reconcile() {
+        long before = changes.get();
+        Map<String, long[]> fresh = new HashMap<>();
+        try {
+            for (var row : studentJdbcRepository.countByTenantAndLevel()) {
+                fresh.computeIfAbsent(row.tenantId(), t -> new long[LEVELS.length])[row.level().ordinal()] = row.count();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Level statistics reconciliation failed, keeping in-memory counts: {}", e.getMessage());
+            return;
+        }
+        if (changes.get() != before) {
+            log.debug("Level statistics reconciliation skipped: concurrent writes");
+            return;
+        }
+        // Les écoles connues en mémoire mais absentes du GROUP BY n'ont plus d'étudiant
+        counts.keySet().forEach(tenant -> fresh.putIfAbsent(tenant, new long[LEVELS.length]));
+        fresh.forEach((tenant, levels) -> {
+            LongAdder[] tenantCounts = counts(tenant);
+            for (Level level : LEVELS) {
+                long current = tenantCounts[level.ordinal()].sum();
+                long drift = levels[level.ordinal()] - current;
+                if (drift != 0) {
+                    tenantCounts[level.ordinal()].add(drift);
+                    if (reconciledAt != null) {
+                        log.info("Level statistics corrected for {}/{}: {} -> {}",
+                                tenant, level, current, levels[level.ordinal()]);
+                    }
+                }
+            }
+        });
+        reconciledAt = Instant.now();
+    }
+}
@@ -0,0 +1,40 @@
+package com.school.backend.Service;
+
+import com.school.backend.Repository.StudentJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Remplit username_normalized pour les lignes créées avant l'ajout de la colonne
+// (ddl-auto: update l'ajoute vide). Une seule passe au démarrage, par lots commités :
+// ensuite l'entité et StudentJdbcRepository tiennent la colonne à jour.
+@Component
+public class NormalizedUsernameBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(NormalizedUsernameBackfill.class);
+
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final int batchSize;
+
+    public NormalizedUsernameBackfill(StudentJdbcRepository studentJdbcRepository,
+                                      @Value("${student.import.batch-size:1000}") int batchSize) {
+        this.studentJdbcRepository = studentJdbcRepository;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long total = 0;
+        int updated;
+        do {
+            updated = studentJdbcRepository.backfillNormalizedUsernames(batchSize);
+            total += updated;
+        } while (updated > 0);
+        if (total > 0) {
+            log.info("Backfilled username_normalized for {} students", total);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.school.backend.Service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.CacheStatsResponse;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Cache read-through des StudentResponse, par id et par username, clés préfixées par l'école.
+// Borné en taille et en durée (spring.cache.caffeine.spec) ; invalidé précisément
+// par les événements d'écriture de StudentService. Les absences ne sont jamais mises en cache.
+@Component
+public class StudentCache {
+
+    public static final String BY_ID = "studentsById";
+    public static final String BY_USERNAME = "studentsByUsername";
+
+    private final Cache byId;
+    private final Cache byUsername;
+
+    // Un id ou un username n'est jamais servi à une autre école que la sienne
+    private record Key(String tenantId, Object value) {}
+
+    public StudentCache(CacheManager cacheManager) {
+        this.byId = cacheManager.getCache(BY_ID);
+        this.byUsername = cacheManager.getCache(BY_USERNAME);
+    }
+
+    public Optional<StudentResponse> getById(Long id, Supplier<Optional<StudentResponse>> loader) {
+        String tenant = TenantContext.current();
+        StudentResponse cached = byId.get(new Key(tenant, id), StudentResponse.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<StudentResponse> loaded = loader.get();
+        loaded.ifPresent(s -> put(tenant, s));
+        return loaded;
+    }
+
+    // Vrai seulement si le username est connu comme existant (jamais de "faux négatif" mis en cache)
+    public boolean isKnownUsername(String username) {
+        return byUsername.get(new Key(TenantContext.current(), username), StudentResponse.class) != null;
+    }
+
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        if (event.before() != null) {
+            evict(event.tenantId(), event.before());
+        }
+        if (event.after() != null) {
+            put(event.tenantId(), event.after());
+        }
+    }
+
+    @EventListener
+    public void onStudentsImported(StudentsImportedEvent event) {
+        event.students().forEach(s -> evict(event.tenantId(), s));
+    }
+
+    public Map<String, CacheStatsResponse> stats() {
+        Map<String, CacheStatsResponse> stats = new LinkedHashMap<>();
+        stats.put(BY_ID, stats(byId));
+        stats.put(BY_USERNAME, stats(byUsername));
+        return stats;
+    }
+
+    private void put(String tenant, StudentResponse student) {
+        byId.put(new Key(tenant, student.id()), student);
+        byUsername.put(new Key(tenant, student.username()), student);
+    }
+
+    private void evict(String tenant, StudentResponse student) {
+        byId.evict(new Key(tenant, student.id()));
+        byUsername.evict(new Key(tenant, student.username()));
+    }
+
+    private static CacheStatsResponse stats(Cache cache) {
+        var nativeCache = (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+        CacheStats s = nativeCache.stats();
+        return new CacheStatsResponse(nativeCache.estimatedSize(), s.hitCount(), s.missCount(),
+                s.hitRate(), s.evictionCount());
+    }
+}
@@ -0,0 +1,336 @@
+package com.school.backend.Service;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentChangeMessage;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Exception.ServiceBusyException;
+import com.school.backend.Repository.StudentJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flux des écritures sur les étudiants, diffusé en Server-Sent Events.
+ * <p>
+ * Le thread qui publie l'événement (celui de l'écriture) ne touche jamais aux sockets : il dépose
+ * le message dans la file bornée de chaque abonné et planifie son envoi sur un petit pool dédié.
+ * Un abonné trop lent dont la file déborde perd ses messages en attente et reçoit un seul
+ * {@code RESYNC} à la place (il recharge la liste) : il ne ralentit ni les écritures ni les autres.
+ * <p>
+ * Les derniers messages sont gardés dans un tampon circulaire : un client qui se reconnecte
+ * avec {@code Last-Event-ID} reçoit ce qu'il a manqué, ou {@code RESYNC} si c'est trop ancien.
+ * <p>
+ * Chaque abonné ne reçoit que les écritures de son école ; les ids d'événement sont communs
+ * à toutes les écoles (un abonné peut donc voir des trous dans la suite, sans conséquence).
+ * Ils sont préfixés par un identifiant de démarrage : après un redémarrage (ou en arrivant sur
+ * une autre instance), un ancien Last-Event-ID ne désigne rien ici et donne un RESYNC.
+ * <p>
+ * Plusieurs instances : le détail d'une écriture n'est diffusé que par l'instance qui l'a faite.
+ * Les autres la repèrent à l'avance de la version partagée de l'école (table student_versions)
+ * au-delà de leurs propres écritures, vérifiée toutes les {@code student.events.remote-check-ms},
+ * et envoient un RESYNC à leurs abonnés de cette école (écritures en SQL direct comprises).
+ */
+@Component
+public class StudentEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentEventBroadcaster.class);
+
+    private final String bootId = UUID.randomUUID().toString().substring(0, 8);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final ExecutorService sender;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+
+    // Tampon de reprise, protégé par son propre verrou (écritures rares, lectures à la connexion)
+    private final ArrayDeque<Published> history = new ArrayDeque<>();
+    private final int historySize;
+    private long lastEventId;
+    // Par école suivie : avance de sa version due aux autres instances, au dernier contrôle
+    private final Map<String, Long> remoteWrites = new ConcurrentHashMap<>();
+
+    public StudentEventBroadcaster(StudentJdbcRepository studentJdbcRepository,
+                                   @Value("${student.events.queue-capacity:256}") int queueCapacity,
+                                   @Value("${student.events.history-size:1000}") int historySize,
+                                   @Value("${student.events.max-subscribers:500}") int maxSubscribers,
+                                   @Value("${student.events.timeout-ms:1800000}") long timeoutMs,
+                                   @Value("${student.events.sender-threads:2}") int senderThreads) {
+        this.studentJdbcRepository = studentJdbcRepository;
+        this.queueCapacity = queueCapacity;
+        this.historySize = historySize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread t = new Thread(runnable, "sse-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Nouvel abonné. {@code lastEventId} (en-tête Last-Event-ID) : reprise après ce message.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceBusyException("Too many event stream subscribers, please retry later", 30);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(TenantContext.current(), emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (history) {
+            // Reprise et inscription sous le même verrou : aucun message ne passe entre les deux
+            replay(subscriber, lastEventId);
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    long lastEventId() {
+        synchronized (history) {
+            return lastEventId;
+        }
+    }
+
+    // Id SSE (champ "id:", renvoyé en Last-Event-ID) : démarrage + numéro
+    String sseId(long eventId) {
+        return bootId + "-" + eventId;
+    }
+
+    // === PUBLICATION ===
+
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        publish(event.tenantId(), event.type().name(), event.before(), event.after(), 1);
+    }
+
+    @EventListener
+    public void onStudentsImported(StudentsImportedEvent event) {
+        publish(event.tenantId(), "IMPORTED", null, null, event.students().size());
+    }
+
+    private void publish(String tenant, String type, StudentResponse before, StudentResponse after, int count) {
+        synchronized (history) {
+            StudentChangeMessage message = new StudentChangeMessage(++lastEventId, type, before, after, count);
+            history.addLast(new Published(tenant, message));
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            for (Subscriber s : subscribers) {
+                if (s.tenant.equals(tenant)) {
+                    s.offer(message);
+                }
+            }
+        }
+        for (Subscriber s : subscribers) {
+            if (s.tenant.equals(tenant)) {
+                schedule(s);
+            }
+        }
+    }
+
+    // Écritures faites par une autre instance (ou en SQL direct) : pas de détail, un RESYNC
+    @Scheduled(fixedDelayString = "${student.events.remote-check-ms:2000}")
+    public void checkRemoteWrites() {
+        resyncRemoteWrites();
+    }
+
+    // Renvoie le nombre d'écoles resynchronisées
+    int resyncRemoteWrites() {
+        Set<String> tenants = new HashSet<>();
+        subscribers.forEach(s -> tenants.add(s.tenant));
+        remoteWrites.keySet().retainAll(tenants);
+        int resynced = 0;
+        for (String tenant : tenants) {
+            // Écritures locales lues avant et après la version : un commit local en cours, on réessaie au tour suivant
+            long local = studentJdbcRepository.localVersionBumps(tenant);
+            if (local < 0) {
+                continue;
+            }
+            long version;
+            try {
+                version = TenantContext.callAs(tenant, studentJdbcRepository::findVersion);
+            } catch (RuntimeException e) {
+                log.debug("Could not read student version of {}: {}", tenant, e.getMessage());
+                return resynced;
+            }
+            if (studentJdbcRepository.localVersionBumps(tenant) != local) {
+                continue;
+            }
+            Long previous = remoteWrites.put(tenant, version - local);
+            if (previous != null && version - local > previous) {
+                resync(tenant);
+                resynced++;
+            }
+        }
+        return resynced;
+    }
+
+    private void resync(String tenant) {
+        for (Subscriber s : subscribers) {
+            if (s.tenant.equals(tenant)) {
+                s.overflow = true;
+                schedule(s);
+            }
+        }
+    }
+
+    // Commentaire SSE périodique : garde la connexion ouverte derrière les proxys et détecte les clients partis
+    @Scheduled(fixedDelayString = "${student.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber s : subscribers) {
+            s.heartbeat = true;
+            schedule(s);
+        }
+    }
+
+    private void replay(Subscriber subscriber, String resumeFrom) {
+        if (resumeFrom == null || resumeFrom.isBlank()) {
+            return;
+        }
+        long after = resumePoint(resumeFrom);
+        if (after < 0) {
+            subscriber.overflow = true;
+            return;
+        }
+        for (Published p : history) {
+            if (p.message().eventId() > after && p.tenant().equals(subscriber.tenant)) {
+                subscriber.offer(p.message());
+            }
+        }
+    }
+
+    // Numéro après lequel reprendre, -1 si l'historique ne permet pas de combler le trou :
+    // id d'un autre démarrage ou d'une autre instance, illisible, trop ancien. Sous le verrou de history.
+    long resumePoint(String resumeFrom) {
+        String prefix = bootId + "-";
+        String id = resumeFrom.trim();
+        if (!id.startsWith(prefix)) {
+            return -1;
+        }
+        long after;
+        try {
+            after = Long.parseLong(id.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        Published oldest = history.peekFirst();
+        if (after < 0 || after > lastEventId || (oldest != null && after < oldest.message().eventId() - 1)
+                || (oldest == null && after != lastEventId)) {
+            return -1;
+        }
+        return after;
+    }
+
+    // === ENVOI (pool dédié, un seul envoi en cours par abonné) ===
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            List<StudentChangeMessage> batch = new ArrayList<>();
+            boolean resync;
+            synchronized (subscriber) {
+                resync = subscriber.overflow;
+                subscriber.overflow = false;
+                if (resync) {
+                    subscriber.queue.clear();
+                } else {
+                    subscriber.queue.drainTo(batch);
+                }
+            }
+            SseEmitter emitter = subscriber.emitter;
+            if (resync) {
+                long id;
+                synchronized (history) {
+                    id = lastEventId;
+                }
+                emitter.send(SseEmitter.event().id(sseId(id)).name("RESYNC")
+                        .data(new StudentChangeMessage(id, "RESYNC", null, null, 0), MediaType.APPLICATION_JSON));
+            }
+            for (StudentChangeMessage m : batch) {
+                emitter.send(SseEmitter.event().id(sseId(m.eventId())).name(m.type())
+                        .data(m, MediaType.APPLICATION_JSON));
+            }
+            if (subscriber.heartbeat) {
+                subscriber.heartbeat = false;
+                emitter.send(SseEmitter.event().comment("ping"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client parti : on l'oublie, sans bruit
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        // Messages arrivés pendant l'envoi
+        if (subscriber.pending()) {
+            schedule(subscriber);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(s -> s.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    private record Published(String tenant, StudentChangeMessage message) {}
+
+    private final class Subscriber {
+        final String tenant;
+        final SseEmitter emitter;
+        final BlockingQueue<StudentChangeMessage> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean overflow;
+        volatile boolean heartbeat;
+
+        Subscriber(String tenant, SseEmitter emitter) {
+            this.tenant = tenant;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(StudentChangeMessage message) {
+            if (!overflow && !queue.offer(message)) {
+                overflow = true; // file pleine : tout ce qui attend sera remplacé par un RESYNC
+                log.debug("SSE subscriber too slow, coalescing to RESYNC");
+            }
+        }
+
+        boolean pending() {
+            return overflow || heartbeat || !queue.isEmpty();
+        }
+    }
+}
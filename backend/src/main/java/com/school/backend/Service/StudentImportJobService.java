@@ -0,0 +1,314 @@
+package com.school.backend.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.ImportJobResponse;
+import com.school.backend.Entity.Student;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Exception.BadRequestException;
+import com.school.backend.Exception.ResourceNotFoundException;
+import com.school.backend.Exception.ServiceBusyException;
+import com.school.backend.Repository.StudentJdbcRepository;
+import com.school.backend.Repository.StudentRepository;
+import com.school.backend.Util.CsvUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Import CSV en tâche de fond : la requête copie le fichier dans un fichier temporaire et
+ * repart aussitôt avec un id de job (202). Le fichier est lu en flux sur un pool borné,
+ * et chaque lot de {@code student.import.batch-size} lignes est vérifié puis inséré dans sa
+ * propre transaction : une ligne invalide est rapportée, pas de rollback global.
+ * L'annulation est prise en compte entre deux lots (les lots déjà commités restent).
+ * Le job tourne pour l'école de la requête qui l'a soumis, seule à pouvoir le consulter.
+ */
+@Service
+public class StudentImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentImportJobService.class);
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final StudentRepository studentRepository;
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int batchSize;
+    private final int maxErrors;
+    private final long retryAfterSeconds;
+    // Jobs terminés gardés le temps d'être consultés, puis oubliés
+    private final Cache<String, ImportJob> jobs;
+
+    public StudentImportJobService(StudentRepository studentRepository,
+                                   StudentJdbcRepository studentJdbcRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${student.import.batch-size:1000}") int batchSize,
+                                   @Value("${student.import.async.threads:1}") int threads,
+                                   @Value("${student.import.async.queue-capacity:4}") int queueCapacity,
+                                   @Value("${student.import.async.max-errors:1000}") int maxErrors,
+                                   @Value("${student.import.async.retention-minutes:60}") long retentionMinutes,
+                                   @Value("${student.import.async.retry-after-seconds:30}") long retryAfterSeconds) {
+        this.studentRepository = studentRepository;
+        this.studentJdbcRepository = studentJdbcRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread t = new Thread(runnable, "csv-import-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(retentionMinutes))
+                .build();
+    }
+
+    public ImportJobResponse submit(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new BadRequestException("Uploaded file is empty");
+        }
+        // Le fichier multipart disparaît à la fin de la requête : on le copie
+        Path copy;
+        try (InputStream in = file.getInputStream()) {
+            copy = Files.createTempFile("students-import-", ".csv");
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to read uploaded file: " + e.getMessage());
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), TenantContext.current(), copy);
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(() -> TenantContext.runAs(job.tenant, () -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            deleteQuietly(copy);
+            throw new ServiceBusyException("Too many imports in progress, please retry later", retryAfterSeconds);
+        }
+        return job.toResponse();
+    }
+
+    public ImportJobResponse getJob(String jobId) {
+        return findJob(jobId).toResponse();
+    }
+
+    public ImportJobResponse cancel(String jobId) {
+        ImportJob job = findJob(jobId);
+        job.cancelRequested = true;
+        // Encore en file : il ne démarrera jamais
+        if (job.future != null && job.future.cancel(false)) {
+            deleteQuietly(job.file);
+            job.finish(Status.CANCELLED, "Cancelled before start");
+        }
+        return job.toResponse();
+    }
+
+    private ImportJob findJob(String jobId) {
+        ImportJob job = jobs.getIfPresent(jobId);
+        // Le job d'une autre école n'existe pas pour celle-ci
+        if (job == null || !job.tenant.equals(TenantContext.current())) {
+            throw new ResourceNotFoundException("Import job not found: " + jobId);
+        }
+        return job;
+    }
+
+    // === TRAITEMENT (thread du pool) ===
+
+    private void run(ImportJob job) {
+        job.start();
+        // Usernames déjà vus dans le fichier (normalisés, comme l'unicité en base)
+        Set<String> seen = new HashSet<>();
+        List<Student> chunk = new ArrayList<>(batchSize);
+        List<Long> chunkLines = new ArrayList<>(batchSize);
+        try (InputStream in = Files.newInputStream(job.file)) {
+            CsvUtil.parseCsv(in, new CsvUtil.RowHandler() {
+                @Override
+                public void onStudent(long line, Student student) {
+                    job.processed.incrementAndGet();
+                    if (!seen.add(Student.normalize(student.getUsername()))) {
+                        job.fail(line, "Duplicate username in file: " + student.getUsername());
+                        return;
+                    }
+                    chunk.add(student);
+                    chunkLines.add(line);
+                    if (chunk.size() == batchSize && !job.cancelRequested) {
+                        writeChunk(job, chunk, chunkLines);
+                    }
+                }
+
+                @Override
+                public void onError(long line, String message) {
+                    job.processed.incrementAndGet();
+                    job.fail(line, message);
+                }
+
+                // Annulation prise en compte à la ligne suivante ; le lot en cours n'est pas écrit
+                @Override
+                public boolean stopped() {
+                    return job.cancelRequested;
+                }
+            });
+            if (!job.cancelRequested && !chunk.isEmpty()) {
+                writeChunk(job, chunk, chunkLines);
+            }
+            if (job.cancelRequested) {
+                job.finish(Status.CANCELLED, "Cancelled after " + job.imported.get() + " imported rows");
+            } else {
+                job.finish(Status.COMPLETED, null);
+            }
+            log.info("CSV import job {}: {} imported, {} failed, {} rows/s", job.id,
+                    job.imported.get(), job.failed.get(), Math.round(job.rowsPerSecond()));
+        } catch (Exception e) {
+            log.warn("CSV import job {} failed: {}", job.id, e.getMessage());
+            job.finish(Status.FAILED, "Import failed: " + e.getMessage());
+        } finally {
+            deleteQuietly(job.file);
+        }
+    }
+
+    // Un lot = une vérification IN (...) + un executeBatch + un commit, dans la même transaction
+    // en écriture : la vérification lit le primaire, jamais une réplique en retard.
+    // Tous les usernames du lot sont vérifiés, sans filtre de Bloom : un username créé sur une autre
+    // instance annulerait tout le lot au lieu d'être signalé sur sa ligne.
+    private void writeChunk(ImportJob job, List<Student> chunk, List<Long> chunkLines) {
+        List<Long> insertLines = new ArrayList<>(chunk.size());
+        try {
+            List<Student> inserted = transactionTemplate.execute(status -> {
+                Set<String> existing = new HashSet<>(studentRepository.findExistingNormalizedUsernames(
+                        chunk.stream().map(s -> Student.normalize(s.getUsername())).toList()));
+
+                List<Student> toInsert = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Student s = chunk.get(i);
+                    if (existing.contains(Student.normalize(s.getUsername()))) {
+                        job.fail(chunkLines.get(i), "Username already exists: " + s.getUsername());
+                    } else {
+                        toInsert.add(s);
+                        insertLines.add(chunkLines.get(i));
+                    }
+                }
+                if (!toInsert.isEmpty()) {
+                    studentJdbcRepository.insertBatch(toInsert);
+                    studentJdbcRepository.bumpVersion();
+                }
+                return toInsert;
+            });
+            if (!inserted.isEmpty()) {
+                job.imported.addAndGet(inserted.size());
+                eventPublisher.publishEvent(new StudentsImportedEvent(
+                        inserted.stream().map(StudentService::toResponse).toList()));
+            }
+        } catch (DuplicateKeyException e) {
+            // Écriture concurrente entre la vérification et l'insertion : le lot est annulé
+            insertLines.forEach(line -> job.fail(line, "Batch rolled back: username created concurrently"));
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary import file {}", file);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // === ÉTAT D'UN JOB (écrit par le thread du pool, lu par les requêtes) ===
+
+    private final class ImportJob {
+        final String id;
+        final String tenant;
+        final Path file;
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final List<ImportJobResponse.LineError> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile Status status = Status.QUEUED;
+        volatile boolean cancelRequested;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile long startNanos;
+        volatile long endNanos;
+        volatile String message;
+        volatile Future<?> future;
+
+        ImportJob(String id, String tenant, Path file) {
+            this.id = id;
+            this.tenant = tenant;
+            this.file = file;
+        }
+
+        void start() {
+            startedAt = Instant.now();
+            startNanos = System.nanoTime();
+            status = Status.RUNNING;
+        }
+
+        void fail(long line, String error) {
+            failed.incrementAndGet();
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportJobResponse.LineError(line, error));
+            }
+        }
+
+        void finish(Status finalStatus, String finalMessage) {
+            endNanos = System.nanoTime();
+            finishedAt = Instant.now();
+            message = finalMessage;
+            status = finalStatus;
+        }
+
+        double rowsPerSecond() {
+            if (startedAt == null) {
+                return 0;
+            }
+            long end = finishedAt != null ? endNanos : System.nanoTime();
+            long elapsedMs = Math.max(1, (end - startNanos) / 1_000_000);
+            return processed.get() * 1000.0 / elapsedMs;
+        }
+
+        ImportJobResponse toResponse() {
+            List<ImportJobResponse.LineError> snapshot;
+            synchronized (errors) {
+                snapshot = List.copyOf(errors);
+            }
+            return new ImportJobResponse(id, status.name(), processed.get(), imported.get(), failed.get(),
+                    rowsPerSecond(), startedAt, finishedAt, message, snapshot);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.school.backend.Service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.*;
+
+// Passage au multi-écoles sur une base existante : ddl-auto: update ajoute la clé unique
+// (tenant_id, username) mais ne supprime jamais l'ancienne clé unique sur username seul.
+// Tant qu'elle existe, deux écoles ne peuvent pas avoir le même username et l'upsert de l'import
+// en fusion (ON DUPLICATE KEY) peut tomber sur la ligne d'une autre école.
+// Exécuté pendant le démarrage, après la mise à jour du schéma par Hibernate (dépendance sur
+// l'EntityManagerFactory) et avant l'ouverture du port : supprime l'ancienne clé, puis vérifie que
+// la clé par école existe. Échec = démarrage interrompu, jamais une application qui tourne à moitié isolée.
+@Component
+public class StudentSchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentSchemaMigration.class);
+
+    // MySQL et H2 : SCHEMA() = base (MySQL) ou schéma (H2) courant
+    private static final String UNIQUE_KEYS_SQL =
+            "SELECT tc.CONSTRAINT_NAME, kcu.COLUMN_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc "
+                    + "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE kcu ON kcu.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA "
+                    + "AND kcu.CONSTRAINT_NAME = tc.CONSTRAINT_NAME AND kcu.TABLE_NAME = tc.TABLE_NAME "
+                    + "WHERE tc.TABLE_SCHEMA = SCHEMA() AND LOWER(tc.TABLE_NAME) = 'students' AND tc.CONSTRAINT_TYPE = 'UNIQUE'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudentSchemaMigration(DataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        migrate();
+    }
+
+    void migrate() {
+        Map<String, Set<String>> keys = uniqueKeys();
+        boolean mysql = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                con.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")));
+        for (Map.Entry<String, Set<String>> key : keys.entrySet()) {
+            if (key.getValue().equals(Set.of("username"))) {
+                // DROP INDEX : toutes les versions de MySQL ; DROP CONSTRAINT : H2 (et MySQL 8.0.19+)
+                jdbcTemplate.execute("ALTER TABLE students " + (mysql ? "DROP INDEX " : "DROP CONSTRAINT ")
+                        + quote(key.getKey(), mysql));
+                log.info("Dropped legacy unique key {} on students(username): usernames are now unique per school",
+                        key.getKey());
+            }
+        }
+        if (!uniqueKeys().containsValue(Set.of("tenant_id", "username"))) {
+            throw new IllegalStateException("Missing unique key on students(tenant_id, username): "
+                    + "create it before starting (required for per-school usernames and the merge import)");
+        }
+    }
+
+    // Nom de clé → colonnes (en minuscules) ; vide si la table n'existe pas encore
+    private Map<String, Set<String>> uniqueKeys() {
+        Map<String, Set<String>> keys = new HashMap<>();
+        jdbcTemplate.query(UNIQUE_KEYS_SQL, rs -> {
+            keys.computeIfAbsent(rs.getString(1), k -> new HashSet<>()).add(rs.getString(2).toLowerCase(Locale.ROOT));
+        });
+        return keys;
+    }
+
+    private static String quote(String name, boolean mysql) {
+        return mysql ? "`" + name.replace("`", "``") + "`" : "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -1,150 +1,796 @@
 package com.school.backend.Service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.school.backend.DTO.*;
 import com.school.backend.Entity.Level;
 import com.school.backend.Entity.Student;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
 import com.school.backend.Exception.*;
+import com.school.backend.Repository.StudentJdbcRepository;
 import com.school.backend.Repository.StudentRepository;
 import com.school.backend.Util.CsvUtil;
+import com.school.backend.Util.CursorUtil;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
-import java.util.Optional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "students.service", description = "Appels de StudentService, par méthode")
 public class StudentService {
 
-    private final StudentRepository studentRepository;
+    private static final Logger log = LoggerFactory.getLogger(StudentService.class);
+
+    // Import synchrone : erreurs par ligne rapportées au plus (la lecture s'arrête au-delà)
+    private static final int MAX_IMPORT_ERRORS = 100;
 
-    public StudentService(StudentRepository studentRepository) {
+    private final StudentRepository studentRepository;
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final UsernameTrigramIndex usernameIndex;
+    private final StudentCache studentCache;
+    private final UsernameBloomFilter usernameFilter;
+    private final LevelStatistics levelStatistics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int importBatchSize;
+
+    public StudentService(StudentRepository studentRepository,
+                          StudentJdbcRepository studentJdbcRepository,
+                          UsernameTrigramIndex usernameIndex,
+                          StudentCache studentCache,
+                          UsernameBloomFilter usernameFilter,
+                          LevelStatistics levelStatistics,
+                          ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${student.import.batch-size:1000}") int importBatchSize) {
         this.studentRepository = studentRepository;
+        this.studentJdbcRepository = studentJdbcRepository;
+        this.usernameIndex = usernameIndex;
+        this.studentCache = studentCache;
+        this.usernameFilter = usernameFilter;
+        this.levelStatistics = levelStatistics;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importBatchSize = importBatchSize;
     }
 
 
 
 
+    // Lectures en transaction readOnly : Hibernate passe la session en FlushMode.MANUAL (aucun flush
+    // ni dirty checking au commit) et les requêtes projettent directement en StudentResponse.
+    @Transactional(readOnly = true)
     public Page<StudentResponse> getAllStudents(int page, int size, String search, Level level) {
+        return searchTimer("page", search, level).record(() -> findPage(page, size, search, level));
+    }
+
+    private Page<StudentResponse> findPage(int page, int size, String search, Level level) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
 
-        // === RECHERCHE PAR ID (priorité absolue) ===
-        if (search != null && !search.isBlank()) {
-            String trimmed = search.trim();
-            if (trimmed.matches("\\d+")) {
-                try {
-                    Long id = Long.parseLong(trimmed);
-                    Optional<Student> studentOpt = studentRepository.findById(id);
+        // === RECHERCHE PAR ID (priorité absolue, servie par le cache) ===
+        Optional<Long> searchedId = parseIdSearch(search);
+        if (searchedId.isPresent()) {
+            // Si un filtre level est actif → on vérifie la compatibilité
+            List<StudentResponse> content = findByIdAndLevel(searchedId.get(), level).stream().toList();
+            return new PageImpl<>(content, pageable, content.size());
+        }
 
-                    if (studentOpt.isEmpty()) {
-                        return new PageImpl<>(List.of(), pageable, 0);
-                    }
+        // === RECHERCHE PAR NOM via l'index de trigrammes (ids résolus en mémoire, total inclus) ===
+        if (search != null && !search.isBlank() && usernameIndex.isReady()) {
+            UsernameTrigramIndex.Matches matches =
+                    usernameIndex.search(search.trim(), level, 0L, (int) pageable.getOffset(), size);
+            return new PageImpl<>(findAllInIdOrder(matches.ids()), pageable, matches.total());
+        }
 
-                    Student student = studentOpt.get();
+        // === RECHERCHE PAR NOM + FILTRE LEVEL (comportement normal) ===
+        Page<StudentResponse> studentPage;
 
-                    // Si un filtre level est actif → on vérifie la compatibilité
-                    if (level != null && student.getLevel() != level) {
-                        return new PageImpl<>(List.of(), pageable, 0);
-                    }
+        if (search != null && !search.isBlank() && level != null) {
+            studentPage = studentRepository.findByUsernameContainingIgnoreCaseAndLevel(search.trim(), level, pageable);
+        } else if (search != null && !search.isBlank()) {
+            studentPage = studentRepository.findByUsernameContainingIgnoreCase(search.trim(), pageable);
+        } else if (level != null) {
+            studentPage = studentRepository.findByLevel(level, pageable);
+        } else {
+            studentPage = studentRepository.findAllBy(pageable);
+        }
 
-                    StudentResponse response = toResponse(student);
-                    List<StudentResponse> content = List.of(response);
+        return studentPage;
+    }
 
-                    return new PageImpl<>(content, pageable, 1);
 
-                } catch (NumberFormatException e) {
-                    // Si ce n'est pas un nombre valide → on passe à la recherche par nom
-                }
-            }
+
+
+    // Recherche par préfixe (mode=prefix) : type-ahead trié par username, servi par l'index
+    // de username_normalized. Une recherche numérique reste une recherche par id.
+    @Transactional(readOnly = true)
+    public Page<StudentResponse> getStudentsByPrefix(int page, int size, String prefix, Level level) {
+        Optional<Long> searchedId = parseIdSearch(prefix);
+        if (searchedId.isPresent() || prefix == null || prefix.isBlank()) {
+            return getAllStudents(page, size, prefix, level);
         }
+        return searchTimer("page", "name_prefix", level != null).record(() -> {
+            Pageable pageable = PageRequest.of(page, size, Sort.by("usernameNormalized", "id").ascending());
+            String normalized = Student.normalize(prefix.trim());
+            return level != null
+                    ? studentRepository.findByUsernameNormalizedStartingWithAndLevel(normalized, level, pageable)
+                    : studentRepository.findByUsernameNormalizedStartingWith(normalized, pageable);
+        });
+    }
 
-        // === RECHERCHE PAR NOM + FILTRE LEVEL (comportement normal) ===
-        Page<Student> studentPage;
+    // Mode "slice" : une requête au lieu de deux (pas de COUNT(*), hasNext seulement).
+    // approximateTotal est servi par les compteurs en mémoire de l'école, et seulement sans filtre.
+    @Transactional(readOnly = true)
+    public StudentSliceResponse getStudentsSlice(int page, int size, String search, Level level, boolean approximateTotal) {
+        return searchTimer("slice", search, level)
+                .record(() -> findSlice(page, size, search, level, approximateTotal));
+    }
+
+    private StudentSliceResponse findSlice(int page, int size, String search, Level level, boolean approximateTotal) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").ascending());
+
+        Optional<Long> searchedId = parseIdSearch(search);
+        if (searchedId.isPresent()) {
+            List<StudentResponse> content = page == 0
+                    ? findByIdAndLevel(searchedId.get(), level).stream().toList()
+                    : List.of();
+            return new StudentSliceResponse(content, page, size, false, null);
+        }
+
+        if (search != null && !search.isBlank() && usernameIndex.isReady()) {
+            UsernameTrigramIndex.Matches matches =
+                    usernameIndex.search(search.trim(), level, 0L, (int) pageable.getOffset(), size);
+            boolean hasNext = pageable.getOffset() + matches.ids().size() < matches.total();
+            return new StudentSliceResponse(findAllInIdOrder(matches.ids()), page, size, hasNext, matches.total());
+        }
 
+        Slice<StudentResponse> slice;
         if (search != null && !search.isBlank() && level != null) {
-            studentPage = studentRepository.findByUsernameContainingIgnoreCaseAndLevel(search.trim(), level, pageable);
+            slice = studentRepository.findSliceByUsernameContainingIgnoreCaseAndLevel(search.trim(), level, pageable);
         } else if (search != null && !search.isBlank()) {
-            studentPage = studentRepository.findByUsernameContainingIgnoreCase(search.trim(), pageable);
+            slice = studentRepository.findSliceByUsernameContainingIgnoreCase(search.trim(), pageable);
         } else if (level != null) {
-            studentPage = studentRepository.findByLevel(level, pageable);
+            slice = studentRepository.findSliceByLevel(level, pageable);
         } else {
-            studentPage = studentRepository.findAll(pageable);
+            slice = studentRepository.findSliceBy(pageable);
         }
 
-        List<StudentResponse> content = studentPage.getContent().stream()
-                .map(this::toResponse)
-                .toList();
+        boolean unfiltered = (search == null || search.isBlank()) && level == null;
+        Long total = approximateTotal && unfiltered ? levelStatistics.total() : null;
+
+        return new StudentSliceResponse(slice.getContent(), page, size, slice.hasNext(), total);
+    }
 
-        return new PageImpl<>(content, pageable, studentPage.getTotalElements());
+    // Pagination keyset : "after" = dernier id de la page précédente (0 / null = début)
+    @Transactional(readOnly = true)
+    public StudentCursorResponse getStudentsAfter(Long after, int size, String search, Level level) {
+        return searchTimer("cursor", search, level).record(() -> findAfter(after, size, search, level));
     }
 
+    private StudentCursorResponse findAfter(Long after, int size, String search, Level level) {
+        long lastSeen = after != null ? after : 0L;
+
+        // === RECHERCHE PAR ID : au plus un résultat, donc jamais de page suivante ===
+        Optional<Long> searchedId = parseIdSearch(search);
+        if (searchedId.isPresent()) {
+            List<StudentResponse> content = findByIdAndLevel(searchedId.get(), level)
+                    .filter(s -> s.id() > lastSeen)
+                    .stream().toList();
+            Long lastId = content.isEmpty() ? null : content.get(0).id();
+            return new StudentCursorResponse(content, size, false, lastId, null);
+        }
+
+        if (search != null && !search.isBlank() && usernameIndex.isReady()) {
+            UsernameTrigramIndex.Matches matches = usernameIndex.search(search.trim(), level, lastSeen, 0, size);
+            List<StudentResponse> content = findAllInIdOrder(matches.ids());
+            boolean hasNext = matches.total() > matches.ids().size();
+            Long lastId = matches.ids().isEmpty() ? null : matches.ids().get(matches.ids().size() - 1);
+            return new StudentCursorResponse(content, size, hasNext, lastId, hasNext ? CursorUtil.encode(lastId) : null);
+        }
+
+        // On lit size + 1 lignes : la ligne en trop indique s'il existe une suite, sans COUNT(*)
+        Limit limit = Limit.of(size + 1);
+        List<StudentResponse> rows;
+        if (search != null && !search.isBlank() && level != null) {
+            rows = studentRepository.findByIdGreaterThanAndUsernameContainingIgnoreCaseAndLevelOrderByIdAsc(
+                    lastSeen, search.trim(), level, limit);
+        } else if (search != null && !search.isBlank()) {
+            rows = studentRepository.findByIdGreaterThanAndUsernameContainingIgnoreCaseOrderByIdAsc(
+                    lastSeen, search.trim(), limit);
+        } else if (level != null) {
+            rows = studentRepository.findByIdGreaterThanAndLevelOrderByIdAsc(lastSeen, level, limit);
+        } else {
+            rows = studentRepository.findByIdGreaterThanOrderByIdAsc(lastSeen, limit);
+        }
 
+        boolean hasNext = rows.size() > size;
+        List<StudentResponse> content = hasNext ? rows.subList(0, size) : rows;
+        Long lastId = content.isEmpty() ? null : content.get(content.size() - 1).id();
 
+        return new StudentCursorResponse(content, size, hasNext, lastId, hasNext ? CursorUtil.encode(lastId) : null);
+    }
 
     public StudentResponse getStudentById(Long id) {
-        return studentRepository.findById(id)
-                .map(this::toResponse)
+        return findCachedById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + id));
     }
 
-    public StudentResponse createStudent(StudentRequest request) {
-        if (studentRepository.existsByUsername(request.username())) {
-            throw new ConflictException("Username already exists: " + request.username());
-        }
+    public Map<String, CacheStatsResponse> getCacheStats() {
+        return studentCache.stats();
+    }
 
-        Student student = new Student();
-        student.setUsername(request.username());
-        student.setLevel(request.level());
+    // Écritures transactionnelles : la vérification du username lit le primaire, pas la réplique.
+    // L'événement part après le commit (jamais sur un rollback) : ETag, cache, index et flux SSE
+    // ne voient une écriture qu'une fois la ligne visible, comme pour applyBatch.
+    public StudentResponse createStudent(StudentRequest request) {
+        StudentResponse created = transactionTemplate.execute(status -> {
+            if (usernameTaken(request.username())) {
+                throw new ConflictException("Username already exists: " + request.username());
+            }
 
-        return toResponse(studentRepository.save(student));
+            Student student = new Student();
+            student.setUsername(request.username());
+            student.setLevel(request.level());
+            StudentResponse saved = toResponse(saveOrConflict(student));
+            studentJdbcRepository.bumpVersion();
+            return saved;
+        });
+        eventPublisher.publishEvent(StudentChangedEvent.created(created));
+        return created;
     }
 
     public StudentResponse updateStudent(Long id, StudentRequest request) {
-        Student student = studentRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + id));
+        StudentChangedEvent event = transactionTemplate.execute(status -> {
+            Student student = studentRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + id));
+
+            // Changer seulement la casse de son propre username n'est pas un conflit
+            boolean renamed = !Student.normalize(student.getUsername()).equals(Student.normalize(request.username()));
+            if (renamed && usernameTaken(request.username())) {
+                throw new ConflictException("Username already exists: " + request.username());
+            }
+
+            StudentResponse before = toResponse(student);
+            student.setUsername(request.username());
+            student.setLevel(request.level());
+            StudentChangedEvent updated = StudentChangedEvent.updated(before, toResponse(saveOrConflict(student)));
+            studentJdbcRepository.bumpVersion();
+            return updated;
+        });
+        eventPublisher.publishEvent(event);
+        return event.after();
+    }
+
+    public void deleteStudent(Long id) {
+        // findById plutôt qu'existsById : même coût, et l'état supprimé est publié aux index
+        StudentResponse deleted = transactionTemplate.execute(status -> {
+            Student student = studentRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + id));
+            studentRepository.delete(student);
+            studentJdbcRepository.bumpVersion();
+            return toResponse(student);
+        });
+        eventPublisher.publishEvent(StudentChangedEvent.deleted(deleted));
+    }
+
+    // === LOT MIXTE CREATE / UPDATE / DELETE ===
+    // Une transaction pour tout le lot : une lecture des ids concernés, une seule vérification
+    // des usernames (WHERE username IN), puis trois executeBatch JDBC au lieu de 2N allers-retours.
+    // Les opérations invalides sont rapportées une par une et n'empêchent pas les autres.
+    public StudentBatchResponse applyBatch(List<StudentBatchOperation> operations) {
+        List<StudentChangedEvent> events = new ArrayList<>();
+        List<StudentBatchResponse.Item> results;
+        try {
+            results = transactionTemplate.execute(status -> executeBatch(operations, events));
+        } catch (DuplicateKeyException e) {
+            // Username pris par une écriture concurrente entre la vérification et l'écriture
+            throw new ConflictException("Username already exists (concurrent change), batch rolled back");
+        }
+        // Index et cache mis à jour seulement après le commit
+        events.forEach(eventPublisher::publishEvent);
+
+        int succeeded = (int) results.stream().filter(StudentBatchResponse.Item::success).count();
+        return new StudentBatchResponse(results, succeeded, results.size() - succeeded);
+    }
 
-        if (!student.getUsername().equals(request.username()) &&
-                studentRepository.existsByUsername(request.username())) {
-            throw new ConflictException("Username already exists: " + request.username());
+    private List<StudentBatchResponse.Item> executeBatch(List<StudentBatchOperation> operations,
+                                                         List<StudentChangedEvent> events) {
+        // 1) Lectures groupées : étudiants visés par UPDATE / DELETE, usernames déjà pris
+        Set<Long> ids = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (StudentBatchOperation op : operations) {
+            if (op == null || op.op() == null) {
+                continue;
+            }
+            if (op.op() != StudentBatchOperation.Type.CREATE && op.id() != null) {
+                ids.add(op.id());
+            }
+            if (op.op() != StudentBatchOperation.Type.DELETE && op.username() != null) {
+                usernames.add(Student.normalize(op.username().trim()));
+            }
         }
+        Map<Long, Student> existingById = new HashMap<>();
+        if (!ids.isEmpty()) {
+            studentRepository.findAllById(ids).forEach(st -> existingById.put(st.getId(), st));
+        }
+        // Comparaison sur la forme normalisée, comme existsByUsernameNormalized
+        Set<String> takenUsernames = new HashSet<>();
+        if (!usernames.isEmpty()) {
+            takenUsernames.addAll(studentRepository.findExistingNormalizedUsernames(usernames));
+        }
+
+        // 2) Validation en mémoire, dans l'ordre du lot
+        StudentBatchResponse.Item[] results = new StudentBatchResponse.Item[operations.size()];
+        Set<Long> touchedIds = new HashSet<>();
+        Set<String> claimedUsernames = new HashSet<>();
+        List<Student> creates = new ArrayList<>();
+        List<Integer> createIndexes = new ArrayList<>();
+        List<Student> updates = new ArrayList<>();
+        List<Integer> updateIndexes = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            StudentBatchOperation op = operations.get(i);
+            String error = validateBatchOperation(op);
+            if (error != null) {
+                results[i] = batchError(i, op, "BAD_REQUEST", error);
+                continue;
+            }
+            Student current = null;
+            if (op.op() != StudentBatchOperation.Type.CREATE) {
+                if (!touchedIds.add(op.id())) {
+                    results[i] = batchError(i, op, "BAD_REQUEST", "Student already modified in this batch: " + op.id());
+                    continue;
+                }
+                current = existingById.get(op.id());
+                if (current == null) {
+                    results[i] = batchError(i, op, "NOT_FOUND", "Student not found with id: " + op.id());
+                    continue;
+                }
+            }
+            if (op.op() == StudentBatchOperation.Type.DELETE) {
+                deletes.add(op.id());
+                events.add(StudentChangedEvent.deleted(toResponse(current)));
+                results[i] = new StudentBatchResponse.Item(i, op.op(), op.id(), "DELETED", null, null);
+                continue;
+            }
 
-        student.setUsername(request.username());
-        student.setLevel(request.level());
+            String username = op.username().trim();
+            String key = Student.normalize(username);
+            boolean keepsOwnUsername = current != null && current.getUsername().equalsIgnoreCase(username);
+            if (!claimedUsernames.add(key) || (takenUsernames.contains(key) && !keepsOwnUsername)) {
+                results[i] = batchError(i, op, "CONFLICT", "Username already exists: " + username);
+                continue;
+            }
+
+            if (op.op() == StudentBatchOperation.Type.CREATE) {
+                creates.add(new Student(null, username, op.level()));
+                createIndexes.add(i);
+            } else {
+                // Copie détachée : l'entité chargée n'est pas modifiée (pas de second UPDATE au flush)
+                Student student = new Student(op.id(), username, op.level());
+                updates.add(student);
+                updateIndexes.add(i);
+                events.add(StudentChangedEvent.updated(toResponse(current), toResponse(student)));
+                results[i] = new StudentBatchResponse.Item(i, op.op(), op.id(), "UPDATED", null, toResponse(student));
+            }
+        }
 
-        return toResponse(studentRepository.save(student));
+        // 3) Écritures JDBC groupées (supprimer d'abord libère les usernames)
+        if (!deletes.isEmpty()) {
+            studentJdbcRepository.deleteBatch(deletes);
+        }
+        if (!updates.isEmpty()) {
+            studentJdbcRepository.updateBatch(updates);
+        }
+        if (!creates.isEmpty()) {
+            studentJdbcRepository.insertBatch(creates);
+            for (int c = 0; c < creates.size(); c++) {
+                StudentResponse created = toResponse(creates.get(c));
+                int i = createIndexes.get(c);
+                events.add(StudentChangedEvent.created(created));
+                results[i] = new StudentBatchResponse.Item(i, StudentBatchOperation.Type.CREATE, created.id(),
+                        "CREATED", null, created);
+            }
+        }
+        if (!events.isEmpty()) {
+            studentJdbcRepository.bumpVersion();
+        }
+        return Arrays.asList(results);
     }
 
-    public void deleteStudent(Long id) {
-        if (!studentRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Student not found with id: " + id);
+    // Mêmes règles que StudentRequest (@NotBlank, @Size(max = 50), @NotNull)
+    private static String validateBatchOperation(StudentBatchOperation op) {
+        if (op == null || op.op() == null) {
+            return "Operation type is required (CREATE, UPDATE or DELETE)";
+        }
+        if (op.op() != StudentBatchOperation.Type.CREATE && op.id() == null) {
+            return "Id is required for " + op.op();
         }
-        studentRepository.deleteById(id);
+        if (op.op() == StudentBatchOperation.Type.DELETE) {
+            return null;
+        }
+        if (op.username() == null || op.username().isBlank()) {
+            return "Username is required";
+        }
+        if (op.username().trim().length() > 50) {
+            return "Username must not exceed 50 characters";
+        }
+        if (op.level() == null) {
+            return "Level is required";
+        }
+        return null;
+    }
+
+    private static StudentBatchResponse.Item batchError(int index, StudentBatchOperation op, String status, String message) {
+        return new StudentBatchResponse.Item(index, op != null ? op.op() : null, op != null ? op.id() : null,
+                status, message, null);
+    }
+
+    // Page JSON en streaming (grandes tailles de page) : même enveloppe que PageResponse, mais chaque
+    // ligne est écrite dans la réponse dès sa lecture, sans List<StudentResponse> ni arbre JSON.
+    // Le COUNT(*) et la page sont lus dans la même transaction (même instantané InnoDB).
+    @Transactional(readOnly = true)
+    public void writePageJson(int page, int size, Level level, JsonGenerator json) throws IOException {
+        long total = level != null ? studentRepository.countByLevel(level) : studentRepository.count();
+        long[] written = {0};
+        json.writeStartObject();
+        json.writeArrayFieldStart("content");
+        try {
+            studentJdbcRepository.scanPage(level, (long) page * size, size, row -> {
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("id", row.id());
+                    json.writeStringField("username", row.username());
+                    json.writeStringField("level", row.level().name());
+                    json.writeEndObject();
+                    written[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // client parti : on arrête de lire
+        }
+        json.writeEndArray();
+        int totalPages = PageResponse.totalPages(size, total);
+        json.writeNumberField("totalElements", total);
+        json.writeNumberField("totalPages", totalPages);
+        json.writeNumberField("number", page);
+        json.writeNumberField("size", size);
+        json.writeBooleanField("first", PageResponse.isFirst(page));
+        json.writeBooleanField("last", PageResponse.isLast(page, totalPages));
+        json.writeBooleanField("empty", written[0] == 0);
+        json.writeEndObject();
     }
 
-    public CsvExportResponse exportToCsv() {
-        List<Student> students = studentRepository.findAll();
-        String csv = CsvUtil.toCsv(students);
-        return new CsvExportResponse(csv);
+    // Export en streaming : les lignes passent du curseur JDBC à la réponse sans
+    // jamais matérialiser la table (ni List, ni String, ni byte[]).
+    @Transactional(readOnly = true)
+    public void exportToCsv(OutputStream out) throws IOException {
+        try (Stream<StudentResponse> rows = studentRepository.streamAllForExport()) {
+            CsvUtil.writeCsv(rows.iterator(), out);
+        }
     }
 
-    public void importFromCsv(MultipartFile file) {
+    // Import en deux lectures du fichier (mémoire : les usernames vus, pas les lignes).
+    // 1) validation complète AVANT toute écriture : syntaxe, doublons dans le fichier puis en base
+    //    par lots IN (...) ; la moindre ligne invalide rejette le fichier avec ses erreurs par ligne,
+    //    sans rien insérer.
+    // 2) relecture et insertion par lots JDBC, un commit par lot. Seul cas d'import partiel : un
+    //    username créé entre-temps par une autre requête. Le lot fautif est annulé, les précédents
+    //    restent, et le 409 dit combien de lignes ont été importées et à partir de quelle ligne reprendre.
+    public CsvImportResponse importFromCsv(MultipartFile file) {
         if (file.isEmpty()) {
             throw new BadRequestException("Uploaded file is empty");
         }
+        long start = System.nanoTime();
+        int[] imported = {0};
+        long[] chunkFirstLine = {0};
         try {
-            List<Student> students = CsvUtil.parseCsv(file);
-            for (Student s : students) {
-                if (studentRepository.existsByUsername(s.getUsername())) {
-                    throw new ConflictException("Username already exists: " + s.getUsername());
+            rejectInvalidLines(validateCsv(file, true));
+
+            List<Student> chunk = new ArrayList<>(importBatchSize);
+            CsvUtil.parseCsv(file.getInputStream(), new CsvUtil.RowHandler() {
+                @Override
+                public void onStudent(long line, Student student) {
+                    if (chunk.isEmpty()) {
+                        chunkFirstLine[0] = line;
+                    }
+                    chunk.add(student);
+                    if (chunk.size() == importBatchSize) {
+                        imported[0] += insertChunk(chunk);
+                    }
                 }
-            }
-            studentRepository.saveAll(students);
+
+                @Override
+                public void onError(long line, String message) {
+                    // fichier modifié entre les deux lectures : impossible avec un upload
+                }
+            });
+            imported[0] += insertChunk(chunk);
+
+            long durationMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            double rowsPerSecond = imported[0] * 1000.0 / durationMs;
+            log.info("CSV import: {} rows in {} ms ({} rows/s)", imported[0], durationMs, Math.round(rowsPerSecond));
+            return new CsvImportResponse(imported[0], durationMs, rowsPerSecond);
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("CSV import interrupted: a username from line " + chunkFirstLine[0]
+                    + " on was created concurrently. " + imported[0] + " row(s) before that line were imported;"
+                    + " re-send the file with mode=merge to import the rest");
         } catch (Exception e) {
             throw new BadRequestException("Failed to import CSV: " + e.getMessage());
         }
     }
 
-    private StudentResponse toResponse(Student student) {
+    // Import en fusion (mode=merge), pour une resynchronisation complète de la liste :
+    // un username existant prend le niveau du fichier, un nouveau est créé. Le fichier est validé
+    // d'abord (syntaxe, doublons dans le fichier) puis traité par lots, un commit par lot :
+    // un SELECT ... IN (...) pour classer les lignes, puis un seul INSERT ... ON DUPLICATE KEY UPDATE
+    // pour les lignes nouvelles ou modifiées (les lignes déjà à jour ne sont pas réécrites).
+    public CsvMergeResponse mergeFromCsv(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new BadRequestException("Uploaded file is empty");
+        }
+        long start = System.nanoTime();
+        try {
+            rejectInvalidLines(validateCsv(file, false));
+
+            List<Student> chunk = new ArrayList<>(importBatchSize);
+            int[] counts = new int[3]; // inserted, updated, unchanged
+            CsvUtil.parseCsv(file.getInputStream(), new CsvUtil.RowHandler() {
+                @Override
+                public void onStudent(long line, Student student) {
+                    chunk.add(student);
+                    if (chunk.size() == importBatchSize) {
+                        mergeChunk(chunk, counts);
+                    }
+                }
+
+                @Override
+                public void onError(long line, String message) {
+                    // fichier déjà validé
+                }
+            });
+            mergeChunk(chunk, counts);
+
+            int rows = counts[0] + counts[1] + counts[2];
+            long durationMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            double rowsPerSecond = rows * 1000.0 / durationMs;
+            log.info("CSV merge: {} inserted, {} updated, {} unchanged in {} ms ({} rows/s)",
+                    counts[0], counts[1], counts[2], durationMs, Math.round(rowsPerSecond));
+            return new CsvMergeResponse(counts[0], counts[1], counts[2], durationMs, rowsPerSecond);
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BadRequestException("Failed to merge CSV: " + e.getMessage());
+        }
+    }
+
+    private void mergeChunk(List<Student> chunk, int[] counts) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<StudentResponse> inserted = new ArrayList<>();
+        List<StudentChangedEvent> updated = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, StudentResponse> existing = studentJdbcRepository.findByNormalizedUsernames(
+                    chunk.stream().map(Student::getUsernameNormalized).toList());
+            List<Student> toWrite = new ArrayList<>(chunk.size());
+            List<String> created = new ArrayList<>();
+            for (Student s : chunk) {
+                StudentResponse before = existing.get(s.getUsernameNormalized());
+                if (before == null) {
+                    toWrite.add(s);
+                    created.add(s.getUsernameNormalized());
+                } else if (before.level() != s.getLevel()) {
+                    // Casse du username en base : la clé unique correspond quelle que soit la collation
+                    toWrite.add(new Student(before.id(), before.username(), s.getLevel()));
+                    updated.add(StudentChangedEvent.updated(before,
+                            new StudentResponse(before.id(), before.username(), s.getLevel())));
+                } else {
+                    counts[2]++;
+                }
+            }
+            if (toWrite.isEmpty()) {
+                return;
+            }
+            studentJdbcRepository.upsertBatch(toWrite);
+            // Ids des lignes créées (non renvoyés de façon fiable par l'upsert multi-lignes)
+            inserted.addAll(studentJdbcRepository.findByNormalizedUsernames(created).values());
+            studentJdbcRepository.bumpVersion();
+        });
+        counts[0] += inserted.size();
+        counts[1] += updated.size();
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(new StudentsImportedEvent(inserted));
+        }
+        updated.forEach(eventPublisher::publishEvent);
+        chunk.clear();
+    }
+
+    private static void rejectInvalidLines(List<ImportJobResponse.LineError> errors) {
+        if (!errors.isEmpty()) {
+            ImportJobResponse.LineError first = errors.get(0);
+            throw new CsvValidationException("CSV import rejected: " + errors.size()
+                    + (errors.size() >= MAX_IMPORT_ERRORS ? "+" : "") + " invalid line(s), first at line "
+                    + first.line() + ": " + first.message(), errors);
+        }
+    }
+
+    // checkExisting : un username déjà en base est une erreur (import simple), pas en fusion
+    private List<ImportJobResponse.LineError> validateCsv(MultipartFile file, boolean checkExisting) throws IOException {
+        List<ImportJobResponse.LineError> errors = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<String> chunk = new ArrayList<>(importBatchSize);
+        List<Long> chunkLines = new ArrayList<>(importBatchSize);
+        CsvUtil.parseCsv(file.getInputStream(), new CsvUtil.RowHandler() {
+            @Override
+            public void onStudent(long line, Student student) {
+                if (!seen.add(Student.normalize(student.getUsername()))) {
+                    onError(line, "Duplicate username in file: " + student.getUsername());
+                    return;
+                }
+                if (!checkExisting) {
+                    return;
+                }
+                chunk.add(student.getUsername());
+                chunkLines.add(line);
+                if (chunk.size() == importBatchSize) {
+                    checkExisting(chunk, chunkLines, errors);
+                }
+            }
+
+            @Override
+            public void onError(long line, String message) {
+                errors.add(new ImportJobResponse.LineError(line, message));
+            }
+
+            @Override
+            public boolean stopped() {
+                return errors.size() >= MAX_IMPORT_ERRORS;
+            }
+        });
+        if (errors.size() < MAX_IMPORT_ERRORS) {
+            checkExisting(chunk, chunkLines, errors);
+        }
+        errors.sort(Comparator.comparingLong(ImportJobResponse.LineError::line));
+        return errors;
+    }
+
+    // Toujours vérifié en base, pas via le filtre de Bloom : un username créé sur une autre instance
+    // ferait échouer tout le lot à l'insertion au lieu d'être signalé sur sa ligne
+    private void checkExisting(List<String> usernames, List<Long> lines, List<ImportJobResponse.LineError> errors) {
+        if (!usernames.isEmpty()) {
+            Set<String> existing = new HashSet<>(studentRepository.findExistingNormalizedUsernames(
+                    usernames.stream().map(Student::normalize).toList()));
+            for (int i = 0; i < usernames.size(); i++) {
+                if (existing.contains(Student.normalize(usernames.get(i)))) {
+                    errors.add(new ImportJobResponse.LineError(lines.get(i), "Username already exists: " + usernames.get(i)));
+                }
+            }
+        }
+        usernames.clear();
+        lines.clear();
+    }
+
+    private int insertChunk(List<Student> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            studentJdbcRepository.insertBatch(chunk);
+            studentJdbcRepository.bumpVersion();
+        });
+        eventPublisher.publishEvent(new StudentsImportedEvent(chunk.stream().map(StudentService::toResponse).toList()));
+        int size = chunk.size();
+        chunk.clear();
+        return size;
+    }
+
+    // Recherche "intelligente" : un terme purement numérique est un id
+    private Optional<Long> parseIdSearch(String search) {
+        if (search == null || !search.trim().matches("\\d+")) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(search.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty(); // hors limites → recherche par nom
+        }
+    }
+
+    private Optional<StudentResponse> findByIdAndLevel(Long id, Level level) {
+        return findCachedById(id)
+                .filter(s -> level == null || s.level() == level);
+    }
+
+    private Optional<StudentResponse> findCachedById(Long id) {
+        return studentCache.getById(id, () -> studentRepository.findResponseById(id));
+    }
+
+    // Un username présent dans le cache existe forcément. Absent du filtre de Bloom : pas de SELECT,
+    // la création tente l'insertion ; si le filtre l'ignorait (écrit sur une autre instance),
+    // saveOrConflict donne le même 409. Sinon on demande à la base.
+    private boolean usernameTaken(String username) {
+        if (studentCache.isKnownUsername(username)) {
+            return true;
+        }
+        return usernameFilter.mightContain(username)
+                && studentRepository.existsByUsernameNormalized(Student.normalize(username));
+    }
+
+    // La contrainte d'unicité tranche : une création concurrente (ou une ligne que le filtre
+    // ne connaissait pas) donne le même 409 que la vérification préalable
+    private Student saveOrConflict(Student student) {
+        try {
+            return studentRepository.saveAndFlush(student);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Username already exists: " + student.getUsername());
+        }
+    }
+
+    // Charge les lignes des ids résolus par l'index, dans l'ordre des ids (ordre de tri de la grille)
+    private List<StudentResponse> findAllInIdOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, StudentResponse> byId = new HashMap<>();
+        studentRepository.findByIdIn(ids).forEach(s -> byId.put(s.id(), s));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull) // supprimé entre-temps
+                .toList();
+    }
+
+    // Un timer par branche de recherche : id, nom, filtre niveau seul, liste complète
+    private Timer searchTimer(String mode, String search, Level level) {
+        String branch;
+        if (parseIdSearch(search).isPresent()) {
+            branch = "id";
+        } else if (search != null && !search.isBlank()) {
+            branch = usernameIndex.isReady() ? "name_index" : "name_sql";
+        } else if (level != null) {
+            branch = "level";
+        } else {
+            branch = "all";
+        }
+        return searchTimer(mode, branch, level != null);
+    }
+
+    private Timer searchTimer(String mode, String branch, boolean levelFilter) {
+        return Timer.builder("students.search")
+                .description("Lecture paginée des étudiants, par branche de recherche")
+                .tag("mode", mode)
+                .tag("branch", branch)
+                .tag("level_filter", String.valueOf(levelFilter))
+                .register(meterRegistry);
+    }
+
+    static StudentResponse toResponse(Student student) {
         return new StudentResponse(student.getId(), student.getUsername(), student.getLevel());
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.school.backend.Service;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.Repository.StudentJdbcRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Version des students de l'école courante, tenue en base (table student_versions) et incrémentée
+// dans la transaction de chaque écriture de StudentService et des imports. Sert d'ETag (faible)
+// aux lectures : tant que la version ne bouge pas, un If-None-Match identique reçoit 304 sans
+// lire la page. Partagée par toutes les instances : une écriture sur l'une invalide les ETags
+// de toutes. Les modifications SQL faites à la main ne la changent pas.
+// Lue comme les pages (transaction readOnly, donc réplique si elle est à jour) et AVANT elles :
+// la version et les lignes arrivent sur la réplique dans la même transaction, un ETag ne peut
+// donc pas désigner des données plus récentes que le corps envoyé avec lui.
+@Component
+public class StudentTableVersion {
+
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public StudentTableVersion(StudentJdbcRepository studentJdbcRepository, PlatformTransactionManager transactionManager) {
+        this.studentJdbcRepository = studentJdbcRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public long current() {
+        Long version = readOnlyTransaction.execute(status -> studentJdbcRepository.findVersion());
+        return version != null ? version : 0;
+    }
+
+    /**
+     * Valeur d'ETag (sans guillemets) pour une représentation donnée de la table :
+     * {@code variant} distingue les paramètres de la requête (page, filtre, format...).
+     * À calculer AVANT de lire les données : une écriture concurrente rendra l'ETag obsolète.
+     */
+    public String etag(String variant) {
+        return current() + "-" + Integer.toHexString((TenantContext.current() + "|" + variant).hashCode());
+    }
+}
@@ -0,0 +1,62 @@
+package com.school.backend.Service;
+
+import com.school.backend.Entity.Admin;
+import com.school.backend.Repository.AdminRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Révocation légère des JWT : chaque admin a une version de jeton (colonne token_version,
+// claim "ver"). La table username → version est gardée en mémoire et rechargée périodiquement ;
+// un jeton dont la version est inférieure à la version connue est refusé.
+// Une révocation faite sur une autre instance est vue au plus tard au rafraîchissement suivant.
+@Component
+public class TokenVersionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    private final AdminRepository adminRepository;
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(AdminRepository adminRepository) {
+        this.adminRepository = adminRepository;
+    }
+
+    public boolean isCurrent(String username, int tokenVersion) {
+        Integer known = versions.get(username);
+        if (known == null) {
+            // Admin pas encore vu par cette instance (créé ailleurs / avant le 1er rafraîchissement)
+            known = adminRepository.findByUsername(username).map(Admin::getTokenVersion).orElse(null);
+            if (known == null) {
+                return false; // admin supprimé
+            }
+            record(username, known);
+        }
+        return tokenVersion >= known;
+    }
+
+    // Les versions ne font que croître : une lecture plus ancienne ne peut pas annuler une révocation
+    public void record(String username, int tokenVersion) {
+        versions.merge(username, tokenVersion, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token-version-refresh-ms:30000}")
+    public void refresh() {
+        try {
+            Set<String> seen = new HashSet<>();
+            for (AdminRepository.TokenVersion v : adminRepository.findAllTokenVersions()) {
+                record(v.getUsername(), v.getTokenVersion());
+                seen.add(v.getUsername());
+            }
+            versions.keySet().retainAll(seen);
+        } catch (RuntimeException e) {
+            log.warn("Token version refresh failed, keeping previous table: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.school.backend.Service;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.Entity.Student;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Repository.StudentJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtre de Bloom des usernames existants (normalisés en minuscules), toutes écoles confondues :
+ * la clé est {@code école + '\0' + username}.
+ * <p>
+ * {@link #mightContain} faux = absent des lignes chargées à la dernière reconstruction et des
+ * écritures faites depuis par <em>cette</em> instance. Chaque instance a son propre filtre : un
+ * username créé sur une autre instance (ou hors application) reste inconnu ici jusqu'à la
+ * reconstruction suivante. Un négatif n'est donc qu'un indice : seule la création unitaire s'en
+ * sert pour éviter le {@code SELECT} d'existence, parce qu'un raté y retombe sur le 409 de la
+ * contrainte d'unicité pour cette seule ligne. Les lots et imports vérifient toujours en base.
+ * Vrai = peut-être (ou filtre pas encore construit) : on interroge la base.
+ * <p>
+ * Un filtre de Bloom ne sait pas retirer : les suppressions et renommages laissent des bits
+ * (faux positifs seulement). Il est donc reconstruit au démarrage puis périodiquement,
+ * dimensionné sur le nombre réel de lignes.
+ */
+@Component
+public class UsernameBloomFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UsernameBloomFilter.class);
+
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    // null tant que la première construction n'est pas terminée
+    private volatile Bits bits;
+    // Écritures pendant une reconstruction : appliquées aux deux filtres
+    private volatile Bits building;
+
+    public UsernameBloomFilter(StudentJdbcRepository studentJdbcRepository,
+                               @Value("${student.username-filter.expected-insertions:100000}") long expectedInsertions,
+                               @Value("${student.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.studentJdbcRepository = studentJdbcRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public boolean isReady() {
+        return bits != null;
+    }
+
+    // Pour l'école courante
+    public boolean mightContain(String username) {
+        Bits current = bits;
+        return current == null || current.mightContain(key(TenantContext.current(), username));
+    }
+
+    public void add(String tenant, String username) {
+        String key = key(tenant, username);
+        Bits current = bits;
+        if (current != null) {
+            current.put(key);
+        }
+        Bits next = building;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    // === SYNCHRONISATION AVEC LES ÉCRITURES ===
+
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        if (event.after() != null) {
+            add(event.tenantId(), event.after().username());
+        }
+    }
+
+    @EventListener
+    public void onStudentsImported(StudentsImportedEvent event) {
+        event.students().forEach(s -> add(event.tenantId(), s.username()));
+    }
+
+    private static String key(String tenant, String username) {
+        return tenant + '\0' + Student.normalize(username);
+    }
+
+    // === RECONSTRUCTION ===
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${student.username-filter.rebuild-ms:3600000}",
+            initialDelayString = "${student.username-filter.rebuild-ms:3600000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        try {
+            // Marge x2 : le taux de faux positifs reste sous la cible jusqu'à la prochaine reconstruction
+            long capacity = Math.max(expectedInsertions, studentJdbcRepository.countAll() * 2);
+            Bits fresh = new Bits(capacity, falsePositiveRate);
+            building = fresh;
+            LongAdder loaded = new LongAdder();
+            studentJdbcRepository.scanAll((tenant, student) -> {
+                fresh.put(key(tenant, student.username()));
+                loaded.increment();
+            });
+            bits = fresh;
+            log.info("Username Bloom filter rebuilt: {} usernames, {} KB, {} hashes in {} ms",
+                    loaded.sum(), fresh.sizeBytes() / 1024, fresh.hashes, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // On garde l'ancien filtre (ou aucun : chaque création interroge la base)
+            log.warn("Username Bloom filter rebuild failed: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    // Tableau de bits partagé sans verrou : un bit posé ne redevient jamais 0
+    static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        final int hashes;
+
+        Bits(long capacity, double falsePositiveRate) {
+            long n = Math.max(1, capacity);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) / 64));
+            this.words = new AtomicLongArray(wordCount);
+            this.size = (long) wordCount * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+        }
+
+        void put(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, size);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndAccumulate(word, mask, (a, b) -> a | b);
+                }
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeBytes() {
+            return size / 8;
+        }
+
+        // FNV-1a 64 bits sur les caractères, puis finaliseur de MurmurHash3 pour répartir les bits
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93e1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.school.backend.Service;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Repository.StudentJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé de trigrammes sur {@code Student.username}, en mémoire.
+ * <p>
+ * {@code LOWER(username) LIKE '%term%'} ne peut jamais utiliser un index MySQL : chaque recherche
+ * de la grille est un scan complet. Ici chaque trigramme du username en minuscules pointe vers la
+ * liste triée des ids qui le contiennent ; une recherche parcourt la plus courte de ces listes et
+ * vérifie le {@code contains} exact (le trigramme est nécessaire, pas suffisant). Les termes de
+ * moins de 3 caractères sont vérifiés sur toutes les entrées, en mémoire.
+ * <p>
+ * Une seule structure pour toutes les écoles : chaque entrée garde son école et une recherche
+ * ne retient que celles de l'école courante (comme le filtre de niveau).
+ * <p>
+ * Reconstruit au démarrage, puis tenu à jour par les événements de {@link StudentService}.
+ * Tant que la reconstruction n'est pas terminée, {@link #isReady()} est faux et le service
+ * retombe sur la requête SQL. Les événements sont locaux à l'instance : les écritures passées
+ * par une autre instance (ou en SQL direct) n'apparaissent qu'à la reconstruction périodique
+ * suivante ({@code student.search.index-rebuild-ms}), l'index en service restant utilisé pendant ce temps.
+ * <p>
+ * Mémoire (JVM 64 bits, oops compressés, usernames ASCII) : ~150 o par étudiant pour l'entrée
+ * (nœud TreeMap, Long, record, String) + 8 o par trigramme distinct du username dans les listes.
+ * Pour un username de 12 caractères : ~230 o, soit ~23 Mo pour 100 000 étudiants, plus ~90 o par
+ * trigramme distinct de tout l'index (borné par l'alphabet). {@link #stats()} donne l'estimation réelle.
+ */
+@Component
+public class UsernameTrigramIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UsernameTrigramIndex.class);
+
+    static final int GRAM = 3;
+
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Data data = new Data();
+    // Écritures reçues pendant une reconstruction, rejouées sur le nouvel index avant la bascule
+    private List<Pending> pendingUpserts;
+    private List<Long> pendingRemovals;
+    private volatile boolean ready;
+
+    public record Matches(List<Long> ids, long total) {}
+
+    public record Stats(int students, int trigrams, long postings, long estimatedBytes) {}
+
+    private record Pending(String tenant, StudentResponse student) {}
+
+    public UsernameTrigramIndex(StudentJdbcRepository studentJdbcRepository) {
+        this.studentJdbcRepository = studentJdbcRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // === RECONSTRUCTION (démarrage, puis périodique) ===
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${student.search.index-rebuild-ms:300000}",
+            initialDelayString = "${student.search.index-rebuild-ms:300000}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingUpserts = new ArrayList<>();
+            pendingRemovals = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Data fresh = new Data();
+        try {
+            studentJdbcRepository.scanAll((tenant, r) -> fresh.put(r.id(), tenant, r.username(), r.level()));
+        } catch (RuntimeException e) {
+            log.warn("Username trigram index rebuild failed, falling back to SQL search: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                pendingUpserts = null;
+                pendingRemovals = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingRemovals.forEach(fresh::remove);
+            pendingUpserts.forEach(p -> fresh.put(p.student().id(), p.tenant(), p.student().username(), p.student().level()));
+            pendingUpserts = null;
+            pendingRemovals = null;
+            data = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Stats stats = stats();
+        log.info("Username trigram index rebuilt: {} students, {} trigrams, ~{} KB in {} ms",
+                stats.students(), stats.trigrams(), stats.estimatedBytes() / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // === SYNCHRONISATION AVEC LES ÉCRITURES ===
+
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> upsert(event.tenantId(), List.of(event.after()));
+            case DELETED -> remove(event.before().id());
+        }
+    }
+
+    @EventListener
+    public void onStudentsImported(StudentsImportedEvent event) {
+        upsert(event.tenantId(), event.students());
+    }
+
+    void upsert(String tenant, List<StudentResponse> students) {
+        lock.writeLock().lock();
+        try {
+            for (StudentResponse s : students) {
+                data.put(s.id(), tenant, s.username(), s.level());
+                if (pendingUpserts != null) {
+                    pendingUpserts.add(new Pending(tenant, s));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            data.remove(id);
+            if (pendingRemovals != null) {
+                pendingRemovals.add(id);
+                pendingUpserts.removeIf(p -> p.student().id().equals(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // === RECHERCHE ===
+
+    /**
+     * Ids (triés) de l'école courante dont le username contient {@code term} (insensible à la casse),
+     * au niveau {@code level} si non null et strictement supérieurs à {@code afterId}.
+     * Retourne la fenêtre [offset, offset + limit) et le nombre total de correspondances.
+     */
+    public Matches search(String term, Level level, long afterId, int offset, int limit) {
+        String needle = term.toLowerCase(Locale.ROOT);
+        String tenant = TenantContext.current();
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        long total = 0;
+
+        lock.readLock().lock();
+        try {
+            if (needle.length() >= GRAM) {
+                Postings driver = data.shortestPostings(needle);
+                if (driver == null) {
+                    return new Matches(List.of(), 0);
+                }
+                int from = driver.firstIndexAfter(afterId);
+                for (int i = from; i < driver.size; i++) {
+                    long id = driver.ids[i];
+                    if (data.matches(id, tenant, needle, level)) {
+                        if (total >= offset && ids.size() < limit) {
+                            ids.add(id);
+                        }
+                        total++;
+                    }
+                }
+            } else {
+                for (Map.Entry<Long, Entry> e : data.entries.tailMap(afterId, false).entrySet()) {
+                    Entry entry = e.getValue();
+                    if (entry.tenant.equals(tenant) && (level == null || entry.level == level)
+                            && entry.username.contains(needle)) {
+                        if (total >= offset && ids.size() < limit) {
+                            ids.add(e.getKey());
+                        }
+                        total++;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Matches(ids, total);
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long chars = 0;
+            for (Entry e : data.entries.values()) {
+                chars += e.username.length();
+            }
+            long postings = 0;
+            long postingCapacity = 0;
+            for (Postings p : data.postings.values()) {
+                postings += p.size;
+                postingCapacity += p.ids.length;
+            }
+            int students = data.entries.size();
+            int trigrams = data.postings.size();
+            // nœud TreeMap 40 + Long 16 + Entry 24 + String 24 + byte[] 16 (+ caractères)
+            long bytes = students * 120L + chars
+                    // nœud HashMap 32 + Long 16 + Postings 24 + en-tête long[] 16 (+ 8 o par case)
+                    + trigrams * 88L + postingCapacity * 8L;
+            return new Stats(students, trigrams, postings, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === STRUCTURES (accès sous verrou) ===
+
+    private record Entry(String tenant, String username, Level level) {}
+
+    private static final class Data {
+        final TreeMap<Long, Entry> entries = new TreeMap<>();
+        final HashMap<Long, Postings> postings = new HashMap<>();
+        // Une seule instance de String par école, partagée par toutes ses entrées
+        final HashMap<String, String> tenants = new HashMap<>();
+
+        void put(Long id, String tenant, String username, Level level) {
+            remove(id);
+            String lower = username.toLowerCase(Locale.ROOT);
+            entries.put(id, new Entry(tenants.computeIfAbsent(tenant, t -> t), lower, level));
+            for (int i = 0; i + GRAM <= lower.length(); i++) {
+                postings.computeIfAbsent(key(lower, i), k -> new Postings()).add(id);
+            }
+        }
+
+        void remove(Long id) {
+            Entry old = entries.remove(id);
+            if (old == null) {
+                return;
+            }
+            for (int i = 0; i + GRAM <= old.username.length(); i++) {
+                long key = key(old.username, i);
+                Postings p = postings.get(key);
+                if (p != null && p.remove(id) && p.size == 0) {
+                    postings.remove(key);
+                }
+            }
+        }
+
+        Postings shortestPostings(String needle) {
+            Postings shortest = null;
+            for (int i = 0; i + GRAM <= needle.length(); i++) {
+                Postings p = postings.get(key(needle, i));
+                if (p == null) {
+                    return null; // un trigramme absent → aucun résultat possible
+                }
+                if (shortest == null || p.size < shortest.size) {
+                    shortest = p;
+                }
+            }
+            return shortest;
+        }
+
+        boolean matches(long id, String tenant, String needle, Level level) {
+            Entry e = entries.get(id);
+            return e != null && e.tenant.equals(tenant) && (level == null || e.level == level)
+                    && e.username.contains(needle);
+        }
+
+        private static long key(String s, int i) {
+            return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+    }
+
+    // Liste d'ids triée ; les ids croissants (IDENTITY) sont ajoutés en fin de tableau
+    private static final class Postings {
+        long[] ids = new long[2];
+        int size;
+
+        void add(long id) {
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int idx = Arrays.binarySearch(ids, 0, size, id);
+            if (idx >= 0) {
+                return;
+            }
+            int at = -idx - 1;
+            ensureCapacity();
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int idx = Arrays.binarySearch(ids, 0, size, id);
+            if (idx < 0) {
+                return false;
+            }
+            System.arraycopy(ids, idx + 1, ids, idx, size - idx - 1);
+            size--;
+            return true;
+        }
+
+        int firstIndexAfter(long afterId) {
+            int idx = Arrays.binarySearch(ids, 0, size, afterId);
+            return idx >= 0 ? idx + 1 : -idx - 1;
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.school.backend.Util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecteur CSV en flux (RFC 4180) : un enregistrement à la fois, en UTF-8 explicite, BOM ignoré.
+ * <p>
+ * Champs entre guillemets avec virgules, sauts de ligne et {@code ""} échappés ; fins de ligne
+ * LF ou CRLF. Un champ non quoté contenu dans le buffer devient directement une String (aucune
+ * copie intermédiaire, aucune regex). Une erreur de syntaxe n'interrompt pas la lecture : elle
+ * est attachée à l'enregistrement ({@link #error()}) et la lecture reprend au suivant.
+ * La mémoire reste bornée : buffer fixe, champs tronqués (et signalés) au-delà de
+ * {@link #MAX_FIELD_LENGTH} caractères, même quand un guillemet fermant manque.
+ */
+public final class CsvReader implements Closeable {
+
+    public static final int MAX_FIELD_LENGTH = 4096;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_FIELDS = 16;
+    private static final char BOM = '\uFEFF';
+
+    private final Reader reader;
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean started;
+
+    private final StringBuilder field = new StringBuilder(64);
+    private final String[] fields = new String[MAX_FIELDS];
+    private int fieldCount;
+    private long line = 1;        // ligne physique courante
+    private long recordLine;      // première ligne de l'enregistrement courant
+    private String error;
+
+    public CsvReader(InputStream in) {
+        // Octets invalides remplacés par U+FFFD (signalés par l'appelant), pas d'exception pour tout le fichier
+        this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Passe à l'enregistrement suivant ; {@code false} en fin de fichier.
+     */
+    public boolean next() throws IOException {
+        fieldCount = 0;
+        error = null;
+        if (pos >= limit && !fill()) {
+            return false;
+        }
+        recordLine = line;
+        while (true) {
+            char c = buf[pos]; // toujours un caractère disponible ici (vérifié avant chaque tour)
+            if (c == '"') {
+                pos++;
+                readQuoted();
+            } else {
+                readUnquoted();
+            }
+            // Délimiteur qui suit le champ
+            if (pos >= limit && !fill()) {
+                return true;
+            }
+            c = buf[pos++];
+            if (c == ',') {
+                if (pos >= limit && !fill()) {
+                    endField(); // "a," en fin de fichier : un dernier champ vide
+                    return true;
+                }
+                continue;
+            }
+            if (c == '\r' && (pos < limit || fill()) && buf[pos] == '\n') {
+                pos++;
+            }
+            line++;
+            return true;
+        }
+    }
+
+    public int size() {
+        return fieldCount;
+    }
+
+    public String field(int index) {
+        return fields[index];
+    }
+
+    // Ligne du fichier où commence l'enregistrement (1 = première ligne)
+    public long line() {
+        return recordLine;
+    }
+
+    // Erreur de syntaxe de l'enregistrement, null si aucune
+    public String error() {
+        return error;
+    }
+
+    // Ligne vide (ou ne contenant qu'un champ vide)
+    public boolean isBlank() {
+        return fieldCount == 0 || (fieldCount == 1 && fields[0].isBlank());
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Jusqu'à , CR ou LF. Cas courant : tout le champ est dans le buffer → une seule String.
+    private void readUnquoted() throws IOException {
+        int start = pos;
+        while (pos < limit) {
+            char c = buf[pos];
+            if (c == ',' || c == '\n' || c == '\r') {
+                int length = pos - start;
+                if (length > MAX_FIELD_LENGTH) {
+                    setError("Field exceeds " + MAX_FIELD_LENGTH + " characters");
+                    length = MAX_FIELD_LENGTH;
+                }
+                addField(new String(buf, start, length));
+                return;
+            }
+            pos++;
+        }
+        // Champ à cheval sur deux remplissages du buffer
+        field.setLength(0);
+        append(buf, start, pos - start);
+        while (pos < limit || fill()) {
+            char c = buf[pos];
+            if (c == ',' || c == '\n' || c == '\r') {
+                break;
+            }
+            append(c);
+            pos++;
+        }
+        endField();
+    }
+
+    // Après le guillemet ouvrant : jusqu'au guillemet fermant, "" = un guillemet
+    private void readQuoted() throws IOException {
+        field.setLength(0);
+        while (true) {
+            if (pos >= limit && !fill()) {
+                setError("Unterminated quoted field");
+                endField();
+                return;
+            }
+            char c = buf[pos++];
+            if (c == '"') {
+                if ((pos < limit || fill()) && buf[pos] == '"') {
+                    append('"');
+                    pos++;
+                    continue;
+                }
+                break;
+            }
+            if (c == '\n') {
+                line++;
+            }
+            append(c);
+        }
+        // Texte entre le guillemet fermant et le délimiteur : toléré mais signalé
+        while (pos < limit || fill()) {
+            char c = buf[pos];
+            if (c == ',' || c == '\n' || c == '\r') {
+                break;
+            }
+            setError("Unexpected character after closing quote");
+            append(c);
+            pos++;
+        }
+        endField();
+    }
+
+    private void append(char c) {
+        if (field.length() < MAX_FIELD_LENGTH) {
+            field.append(c);
+        } else {
+            setError("Field exceeds " + MAX_FIELD_LENGTH + " characters");
+        }
+    }
+
+    private void append(char[] chars, int offset, int length) {
+        int room = MAX_FIELD_LENGTH - field.length();
+        if (length > room) {
+            setError("Field exceeds " + MAX_FIELD_LENGTH + " characters");
+            length = room;
+        }
+        field.append(chars, offset, length);
+    }
+
+    private void endField() {
+        addField(field.toString());
+        field.setLength(0);
+    }
+
+    private void addField(String value) {
+        // Colonnes en trop ignorées (elles ne sont jamais lues) : tableau de taille fixe
+        if (fieldCount < MAX_FIELDS) {
+            fields[fieldCount] = value;
+        }
+        fieldCount = Math.min(fieldCount + 1, MAX_FIELDS);
+    }
+
+    private void setError(String message) {
+        if (error == null) {
+            error = message;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int n = reader.read(buf, 0, buf.length);
+        pos = 0;
+        limit = Math.max(n, 0);
+        if (!started && limit > 0) {
+            started = true;
+            if (buf[0] == BOM) {
+                pos = 1;
+                return pos < limit || fill();
+            }
+        }
+        return pos < limit;
+    }
+}
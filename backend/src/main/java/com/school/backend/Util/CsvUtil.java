@@ -1,44 +1,136 @@
 // src/main/java/com/school/backend/Util/CsvUtil.java
 package com.school.backend.Util;
 
+import com.school.backend.DTO.StudentResponse;
 import com.school.backend.Entity.Level;
 import com.school.backend.Entity.Student;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 
 public class CsvUtil {
 
-    public static List<Student> parseCsv(MultipartFile file) {
-        List<Student> students = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String line;
-            boolean firstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (firstLine) { firstLine = false; continue; } // skip header
-                String[] parts = line.split(",");
-                if (parts.length >= 2) {
-                    Student student = new Student();
-                    student.setUsername(parts[0].trim());
-                    student.setLevel(Level.valueOf(parts[1].trim().toUpperCase()));
-                    students.add(student);
+    public static final String HEADER = "username,level";
+
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Reçoit les lignes de données au fil de la lecture, avec leur numéro de ligne dans le fichier :
+     * un étudiant valide ou le message d'erreur de la ligne.
+     */
+    public interface RowHandler {
+
+        void onStudent(long line, Student student);
+
+        void onError(long line, String message);
+
+        // true : arrêter la lecture (annulation, trop d'erreurs)
+        default boolean stopped() {
+            return false;
+        }
+    }
+
+    /**
+     * Lit le CSV en flux (UTF-8, BOM toléré, guillemets RFC 4180) et passe chaque ligne de données
+     * au handler ; la première ligne est l'en-tête, les lignes vides sont ignorées.
+     * Une ligne invalide est rapportée et la lecture continue. Renvoie le nombre de lignes lues.
+     */
+    public static long parseCsv(InputStream in, RowHandler handler) throws IOException {
+        long rows = 0;
+        try (CsvReader reader = new CsvReader(in)) {
+            boolean header = true;
+            while (!handler.stopped() && reader.next()) {
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                if (reader.isBlank()) {
+                    continue;
+                }
+                rows++;
+                Student student;
+                try {
+                    student = toStudent(reader);
+                } catch (IllegalArgumentException e) {
+                    handler.onError(reader.line(), e.getMessage());
+                    continue;
                 }
+                handler.onStudent(reader.line(), student);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse CSV file: " + e.getMessage());
         }
-        return students;
+        return rows;
+    }
+
+    /**
+     * Enregistrement courant "username,level" → Student (sans id).
+     * Lève IllegalArgumentException avec un message lisible si la ligne est invalide.
+     */
+    private static Student toStudent(CsvReader reader) {
+        if (reader.error() != null) {
+            throw new IllegalArgumentException(reader.error());
+        }
+        if (reader.size() < 2) {
+            throw new IllegalArgumentException("Expected 'username,level'");
+        }
+        String username = reader.field(0).trim();
+        if (username.isEmpty()) {
+            throw new IllegalArgumentException("Username is required");
+        }
+        if (username.length() > 50) {
+            throw new IllegalArgumentException("Username must not exceed 50 characters");
+        }
+        if (username.indexOf('\uFFFD') >= 0) {
+            throw new IllegalArgumentException("Username is not valid UTF-8");
+        }
+        String level = reader.field(1).trim();
+        Student student = new Student();
+        student.setUsername(username);
+        try {
+            student.setLevel(Level.valueOf(level.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown level: " + level);
+        }
+        return student;
     }
 
     public static String toCsv(List<Student> students) {
         StringBuilder sb = new StringBuilder();
-        sb.append("username,level\n");
+        sb.append(HEADER).append("\n");
         for (Student s : students) {
-            sb.append(s.getUsername()).append(",").append(s.getLevel()).append("\n");
+            sb.append(quote(s.getUsername())).append(",").append(s.getLevel()).append("\n");
         }
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Écrit les lignes au fil de l'eau dans {@code out} (UTF-8) : seul le buffer
+     * du writer est en mémoire, quelle que soit la taille de la table.
+     */
+    public static void writeCsv(Iterator<StudentResponse> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writer.write(HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            StudentResponse row = rows.next();
+            writer.write(quote(row.username()));
+            writer.write(',');
+            writer.write(row.level().name());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    // Guillemets seulement si nécessaire (virgule, guillemet, saut de ligne) : relu tel quel par parseCsv
+    private static String quote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+}
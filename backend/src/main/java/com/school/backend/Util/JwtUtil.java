@@ -1,21 +1,28 @@
-
 package com.school.backend.Util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.school.backend.Config.TenantContext;
+import com.school.backend.Entity.Admin;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.security.core.GrantedAuthority;
 
 import javax.crypto.SecretKey;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 @Component
 public class JwtUtil {
@@ -26,9 +33,55 @@ public class JwtUtil {
     @Value("${jwt.expiration-ms}")
     private long expirationMs;
 
-    private SecretKey getSigningKey() {
+    // Nombre max de jetons déjà vérifiés gardés en mémoire (clé = SHA-256 du jeton)
+    @Value("${jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
+    // Construits une seule fois : décoder le secret et bâtir le parser à chaque appel coûtait
+    // plus cher que la vérification HMAC elle-même
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private Cache<ByteBuffer, VerifiedToken> verifiedTokens;
+
+    public static final String VERSION_CLAIM = "ver";
+    // École de l'admin : toutes ses requêtes sont limitées à ses étudiants
+    public static final String TENANT_CLAIM = "tenant";
+
+    // Résultat d'une vérification (signature + expiration) : un seul parsing par jeton
+    public record VerifiedToken(String username, List<String> authorities, int version, String tenant,
+                                Date expiration) {
+
+        public boolean isExpired() {
+            return expiration.before(new Date());
+        }
+    }
+
+    @PostConstruct
+    void init() {
         byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes); // clé 256+ bits
+        signingKey = Keys.hmacShaKeyFor(keyBytes); // clé 256+ bits
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                // chaque entrée vit jusqu'à l'expiration de son jeton, pas au-delà
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, VerifiedToken token, long currentTime) {
+                        long remainingMs = token.expiration().getTime() - System.currentTimeMillis();
+                        return Math.max(0, remainingMs) * 1_000_000;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -37,43 +90,77 @@ public class JwtUtil {
         claims.put("authorities", userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList());
+        if (userDetails instanceof Admin admin) {
+            claims.put(VERSION_CLAIM, admin.getTokenVersion());
+            claims.put(TENANT_CLAIM, admin.getTenantId());
+        }
 
         return Jwts.builder()
                 .claims(claims)
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expirationMs))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    /**
+     * Vérifie signature et expiration en un seul parsing. Un jeton déjà vérifié est servi
+     * depuis le cache (indexé par son SHA-256) jusqu'à son expiration.
+     * Vide si le jeton est invalide, falsifié ou expiré.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        ByteBuffer key = sha256(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.isExpired() ? Optional.empty() : Optional.of(cached);
+        }
+        VerifiedToken verified;
+        try {
+            verified = toVerifiedToken(extractAllClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (verified.expiration() == null || verified.isExpired()) {
+            return Optional.empty();
+        }
+        verifiedTokens.put(key, verified);
+        return Optional.of(verified);
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+    public String extractUsername(String token) {
+        return extractAllClaims(token).getSubject();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return verify(token)
+                .map(t -> t.username().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private Claims extractAllClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        final Claims claims = extractAllClaims(token);
-        return resolver.apply(claims);
+    @SuppressWarnings("unchecked")
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        Object authorities = claims.get("authorities");
+        List<String> names = authorities instanceof List<?> list
+                ? ((List<Object>) list).stream().map(String::valueOf).toList()
+                : List.of();
+        Number version = claims.get(VERSION_CLAIM, Number.class);
+        // Jetons émis avant le multi-écoles : école par défaut
+        String tenant = claims.get(TENANT_CLAIM, String.class);
+        return new VerifiedToken(claims.getSubject(), names, version != null ? version.intValue() : 0,
+                tenant != null ? tenant : TenantContext.DEFAULT_TENANT, claims.getExpiration());
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static ByteBuffer sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.school.backend.Config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private JdbcDataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate writeTx;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        // Deux bases H2 distinctes, chacune marquée par son nom
+        JdbcDataSource primary = h2("primary");
+        replica = h2("replica");
+
+        monitor = new ReplicaLagMonitor(replica, "SELECT lag FROM replica_status", 5);
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, monitor));
+        jdbcTemplate = new JdbcTemplate(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void beforeFirstProbe_ReadsStayOnPrimary() {
+        assertFalse(monitor.isUsable());
+        assertEquals("primary", readOnlyTx.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void readOnlyTransaction_GoesToReplica_OthersToPrimary() {
+        monitor.check();
+
+        assertEquals("replica", readOnlyTx.execute(status -> whoAmI()));
+        assertEquals("primary", writeTx.execute(status -> whoAmI()));
+        assertEquals("primary", whoAmI()); // hors transaction
+    }
+
+    @Test
+    void laggingReplica_ReadsFallBackToPrimary() {
+        new JdbcTemplate(replica).update("UPDATE replica_status SET lag = 30");
+        monitor.check();
+
+        assertFalse(monitor.isUsable());
+        assertEquals("primary", readOnlyTx.execute(status -> whoAmI()));
+
+        new JdbcTemplate(replica).update("UPDATE replica_status SET lag = 0");
+        monitor.check();
+
+        assertEquals("replica", readOnlyTx.execute(status -> whoAmI()));
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class);
+    }
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE whoami (name VARCHAR(20))");
+        template.update("INSERT INTO whoami VALUES (?)", name);
+        template.execute("CREATE TABLE replica_status (lag BIGINT)");
+        template.update("INSERT INTO replica_status VALUES (0)");
+        return dataSource;
+    }
+}
@@ -0,0 +1,188 @@
+package com.school.backend.Controller;
+
+import com.school.backend.DTO.ImportJobResponse;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Exception.GlobalExceptionHandler;
+import com.school.backend.Repository.StudentJdbcRepository;
+import com.school.backend.Service.LevelStatistics;
+import com.school.backend.Service.StudentEventBroadcaster;
+import com.school.backend.Service.StudentImportJobService;
+import com.school.backend.Service.StudentService;
+import com.school.backend.Service.StudentTableVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// GET conditionnels : ETag tiré de la table student_versions (H2 en mode MySQL),
+// partagée entre deux "instances" qui ne se parlent pas ; validation des paramètres de liste et d'import
+@ExtendWith(MockitoExtension.class)
+class StudentControllerTest {
+
+    @Mock
+    private StudentService studentService;
+
+    @Mock
+    private StudentImportJobService importJobService;
+
+    private MockMvc mockMvc;
+
+    // Autre instance du backend, sur la même base
+    private StudentJdbcRepository otherNode;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE student_versions (tenant_id VARCHAR(64) PRIMARY KEY, version BIGINT NOT NULL)");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        StudentTableVersion tableVersion = new StudentTableVersion(new StudentJdbcRepository(jdbcTemplate), transactionManager);
+        otherNode = new StudentJdbcRepository(new JdbcTemplate(dataSource));
+        mockMvc = MockMvcBuilders.standaloneSetup(new StudentController(studentService,
+                importJobService, tableVersion, mock(LevelStatistics.class),
+                mock(StudentEventBroadcaster.class), 1000, 10000))
+                .setControllerAdvice(new GlobalExceptionHandler()).build();
+
+        lenient().when(studentService.getAllStudents(0, 10, null, null)).thenReturn(new PageImpl<>(
+                List.of(new StudentResponse(1L, "john_doe", Level.L3)), PageRequest.of(0, 10), 1));
+    }
+
+    @Test
+    void getAll_SendsWeakEtag_And304OnMatch() throws Exception {
+        String etag = firstGet();
+        assertTrue(etag.startsWith("W/\""), etag);
+
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        // 304 sans lire la page
+        verify(studentService, times(1)).getAllStudents(0, 10, null, null);
+    }
+
+    @Test
+    void getAll_AfterWriteOnAnotherInstance_Returns200() throws Exception {
+        String etag = firstGet();
+
+        otherNode.bumpVersion();
+
+        String fresh = mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("john_doe"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, fresh);
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, fresh))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getAll_IfNoneMatchListStarAndStrongForm() throws Exception {
+        String etag = firstGet();
+        String strong = etag.substring(2);
+
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, "W/\"other\", " + etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotModified());
+        // Comparaison faible : la forme sans W/ désigne le même ETag
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, strong))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, "W/\"other\", \"stale\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getAll_EtagDependsOnQuery() throws Exception {
+        String etag = firstGet();
+        when(studentService.getAllStudents(1, 10, null, null)).thenReturn(new PageImpl<>(
+                List.of(), PageRequest.of(1, 10), 1));
+
+        mockMvc.perform(get("/api/students").param("page", "1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void keyset_InvalidSize_Returns400() throws Exception {
+        mockMvc.perform(get("/api/students").param("after", "0").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students").param("after", "0").param("size", "-5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students").param("after", "0").param("size", "10001"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(studentService);
+    }
+
+    @Test
+    void list_MixedPagingModes_Returns400() throws Exception {
+        mockMvc.perform(get("/api/students").param("slice", "true").param("after", "5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students").param("slice", "true").param("cursor", "abc"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students").param("after", "5").param("cursor", "abc"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(studentService);
+    }
+
+    @Test
+    void importCsv_DispatchesOnModeAndAsync() throws Exception {
+        MockMultipartFile file = csvFile();
+        when(importJobService.submit(file)).thenReturn(mock(ImportJobResponse.class));
+
+        mockMvc.perform(multipart("/api/students/import/csv").file(file)).andExpect(status().isOk());
+        mockMvc.perform(multipart("/api/students/import/csv").file(file).param("mode", "merge"))
+                .andExpect(status().isOk());
+        mockMvc.perform(multipart("/api/students/import/csv").file(file).param("async", "true"))
+                .andExpect(status().isAccepted());
+
+        verify(studentService).importFromCsv(any());
+        verify(studentService).mergeFromCsv(any());
+        verify(importJobService).submit(any());
+    }
+
+    @Test
+    void importCsv_MergeWithAsyncOrUnknownMode_Returns400() throws Exception {
+        MockMultipartFile file = csvFile();
+
+        mockMvc.perform(multipart("/api/students/import/csv").file(file).param("mode", "merge").param("async", "true"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(multipart("/api/students/import/csv").file(file).param("mode", "upsert"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(studentService, importJobService);
+    }
+
+    private static MockMultipartFile csvFile() {
+        return new MockMultipartFile("file", "students.csv", "text/csv",
+                "username,level\nnew_one,L1\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String firstGet() throws Exception {
+        return mockMvc.perform(get("/api/students"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -2,17 +2,25 @@ package com.school.backend.Service;
 
 import com.school.backend.DTO.*;
 import com.school.backend.Entity.Admin;
+import com.school.backend.Config.LocalBucketStore;
+import com.school.backend.Config.TenantContext;
+import com.school.backend.Exception.ServiceBusyException;
+import com.school.backend.Exception.TooManyRequestsException;
 import com.school.backend.Repository.AdminRepository;
 import com.school.backend.Util.JwtUtil;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,13 +35,25 @@ class AuthServiceTest {
     @Mock
     private JwtUtil jwtUtil;
 
-    @InjectMocks
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
     private AuthService authService;
 
+    private LocalBucketStore bucketStore;
+
     private Admin admin;
 
     @BeforeEach
     void setUp() {
+        PasswordHashingService passwordHashing =
+                new PasswordHashingService(new BCryptPasswordEncoder(4), 1, 10, 5000, 2);
+        bucketStore = new LocalBucketStore(BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(2, Refill.intervally(2, Duration.ofMinutes(1))))
+                .build(), 100, Duration.ofMinutes(2));
+        authService = new AuthService(adminRepository, jwtUtil, tokenVersionRegistry, passwordHashing, bucketStore,
+                new SimpleMeterRegistry());
+
         admin = new Admin();
         admin.setId(1L);
         admin.setUsername("admin");
@@ -80,6 +100,17 @@ class AuthServiceTest {
         assertEquals("401 UNAUTHORIZED \"Invalid username or password\"", exception.getMessage());
     }
 
+    @Test
+    void revokeTokens_BumpsVersionAndRecordsItLocally() {
+        admin.setTokenVersion(3);
+        when(adminRepository.incrementTokenVersion("admin")).thenReturn(1);
+        when(adminRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+
+        authService.revokeTokens("admin");
+
+        verify(tokenVersionRegistry).record("admin", 3);
+    }
+
     @Test
     void register_Success() {
         RegisterRequest request = new RegisterRequest("newadmin", "pass123");
@@ -91,10 +122,59 @@ class AuthServiceTest {
 
         verify(adminRepository).save(argThat(a ->
                 "newadmin".equals(a.getUsername()) &&
-                        new BCryptPasswordEncoder().matches("pass123", a.getPassword())
+                        new BCryptPasswordEncoder().matches("pass123", a.getPassword()) &&
+                        TenantContext.DEFAULT_TENANT.equals(a.getTenantId())
         ));
     }
 
+    @Test
+    void provisionAdmin_UsesCallersSchool() {
+        when(adminRepository.existsByUsername("second")).thenReturn(false);
+
+        TenantContext.runAs("lycee-nord", () -> authService.provisionAdmin(new RegisterRequest("second", "pass123")));
+
+        verify(adminRepository).save(argThat(a -> "second".equals(a.getUsername()) && "lycee-nord".equals(a.getTenantId())));
+    }
+
+    @Test
+    void login_TooManyAttemptsForUsername_Throws429() {
+        when(adminRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+        LoginRequest wrong = new LoginRequest("admin", "wrongpass");
+
+        assertThrows(ResponseStatusException.class, () -> authService.login(wrong));
+        assertThrows(ResponseStatusException.class, () -> authService.login(wrong));
+        // même compte, casse différente : même bucket, bloqué avant toute recherche ou BCrypt
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> authService.login(new LoginRequest("ADMIN", "wrongpass")));
+
+        assertTrue(exception.getRetryAfterSeconds() > 0);
+        verify(adminRepository, times(2)).findByUsername("admin");
+    }
+
+    @Test
+    void login_SaturatedHashingPool_Throws503() throws Exception {
+        PasswordHashingService saturated = new PasswordHashingService(new BCryptPasswordEncoder(4), 1, 1, 5000, 7);
+        AuthService busyService = new AuthService(adminRepository, jwtUtil, tokenVersionRegistry, saturated, bucketStore,
+                new SimpleMeterRegistry());
+        when(adminRepository.findByUsername("admin")).thenReturn(Optional.of(admin));
+
+        // Occupe l'unique thread et l'unique place de la file avec des hachages coûteux
+        String slowHash = new BCryptPasswordEncoder(12).encode("x");
+        Thread first = new Thread(() -> saturated.matches("x", slowHash));
+        Thread second = new Thread(() -> saturated.matches("x", slowHash));
+        first.start();
+        while (saturated.stats().activeThreads() == 0) Thread.sleep(1);
+        second.start();
+        while (saturated.stats().queueDepth() == 0) Thread.sleep(1);
+
+        ServiceBusyException exception = assertThrows(
+                ServiceBusyException.class,
+                () -> busyService.login(new LoginRequest("admin", "password"))
+        );
+        assertEquals(7, exception.getRetryAfterSeconds());
+        assertEquals(1, saturated.stats().rejected());
+    }
+
     @Test
     void register_UsernameExists_Throws409() {
         when(adminRepository.existsByUsername("admin")).thenReturn(true);
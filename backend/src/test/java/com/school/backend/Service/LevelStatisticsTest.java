@@ -0,0 +1,90 @@
+package com.school.backend.Service;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.DTO.StudentStatsResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Repository.StudentJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LevelStatisticsTest {
+
+    @Mock
+    private StudentJdbcRepository studentJdbcRepository;
+
+    private LevelStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new LevelStatistics(studentJdbcRepository);
+        when(studentJdbcRepository.countByTenantAndLevel()).thenReturn(List.of(
+                count(TenantContext.DEFAULT_TENANT, Level.L1, 3),
+                count(TenantContext.DEFAULT_TENANT, Level.M2, 1),
+                count("school2", Level.L1, 7)));
+        statistics.load();
+    }
+
+    @Test
+    void events_UpdateCountersWithoutQueries() {
+        StudentResponse john = new StudentResponse(1L, "john", Level.L1);
+        StudentResponse johnM1 = new StudentResponse(1L, "john", Level.M1);
+
+        statistics.onStudentChanged(StudentChangedEvent.created(new StudentResponse(9L, "new", Level.L2)));
+        statistics.onStudentChanged(StudentChangedEvent.updated(john, johnM1));
+        statistics.onStudentChanged(StudentChangedEvent.deleted(new StudentResponse(2L, "old", Level.M2)));
+        statistics.onStudentsImported(new StudentsImportedEvent(List.of(
+                new StudentResponse(10L, "a", Level.L3), new StudentResponse(11L, "b", Level.L3))));
+
+        StudentStatsResponse stats = statistics.snapshot();
+        assertEquals(6, stats.total());
+        assertEquals(2, stats.byLevel().get(Level.L1));
+        assertEquals(1, stats.byLevel().get(Level.L2));
+        assertEquals(2, stats.byLevel().get(Level.L3));
+        assertEquals(1, stats.byLevel().get(Level.M1));
+        assertEquals(0, stats.byLevel().get(Level.M2));
+        verify(studentJdbcRepository, times(1)).countByTenantAndLevel();
+    }
+
+    @Test
+    void reconcile_CorrectsDrift() {
+        when(studentJdbcRepository.countByTenantAndLevel())
+                .thenReturn(List.of(count(TenantContext.DEFAULT_TENANT, Level.L1, 5)));
+
+        statistics.reconcile();
+
+        StudentStatsResponse stats = statistics.snapshot();
+        assertEquals(5, stats.total());
+        assertEquals(5, stats.byLevel().get(Level.L1));
+        assertEquals(0, stats.byLevel().get(Level.M2));
+        // école disparue du GROUP BY : remise à zéro
+        assertEquals(0, TenantContext.callAs("school2", statistics::total));
+    }
+
+    @Test
+    void snapshot_CountsOnlyCurrentTenant() {
+        statistics.onStudentChanged(new StudentChangedEvent("school2", StudentChangedEvent.Type.CREATED,
+                null, new StudentResponse(20L, "other", Level.M1)));
+
+        assertEquals(4, statistics.total());
+        StudentStatsResponse school2 = TenantContext.callAs("school2", statistics::snapshot);
+        assertEquals(8, school2.total());
+        assertEquals(7, school2.byLevel().get(Level.L1));
+        assertEquals(1, school2.byLevel().get(Level.M1));
+    }
+
+    private static StudentJdbcRepository.LevelCount count(String tenant, Level level, long count) {
+        return new StudentJdbcRepository.LevelCount(tenant, level, count);
+    }
+}
@@ -0,0 +1,104 @@
+package com.school.backend.Service;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Exception.ServiceBusyException;
+import com.school.backend.Repository.StudentJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StudentEventBroadcasterTest {
+
+    private StudentEventBroadcaster broadcaster;
+
+    private StudentJdbcRepository studentJdbcRepository;
+
+    @BeforeEach
+    void setUp() {
+        studentJdbcRepository = mock(StudentJdbcRepository.class);
+        // file de 2 messages par abonné, 3 messages d'historique, 2 abonnés max
+        broadcaster = new StudentEventBroadcaster(studentJdbcRepository, 2, 3, 2, 60_000, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void events_GetIncreasingIds() {
+        StudentResponse john = new StudentResponse(1L, "john", Level.L1);
+
+        broadcaster.onStudentChanged(StudentChangedEvent.created(john));
+        broadcaster.onStudentsImported(new StudentsImportedEvent(List.of(john, john)));
+        broadcaster.onStudentChanged(StudentChangedEvent.deleted(john));
+
+        assertEquals(3, broadcaster.lastEventId());
+    }
+
+    @Test
+    void subscribe_AcceptsAnyResumePoint() {
+        StudentResponse john = new StudentResponse(1L, "john", Level.L1);
+        for (int i = 0; i < 5; i++) {
+            broadcaster.onStudentChanged(StudentChangedEvent.created(john));
+        }
+
+        // dans l'historique, trop ancien, illisible : jamais d'erreur, au pire un RESYNC
+        assertNotNull(broadcaster.subscribe(broadcaster.sseId(4)));
+        assertNotNull(broadcaster.subscribe("abc"));
+        assertEquals(2, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void resumePoint_OnlyIdsOfThisBootStillInHistory() {
+        StudentResponse john = new StudentResponse(1L, "john", Level.L1);
+        for (int i = 0; i < 5; i++) {
+            broadcaster.onStudentChanged(StudentChangedEvent.created(john));
+        }
+
+        assertEquals(4, broadcaster.resumePoint(broadcaster.sseId(4)));
+        assertEquals(2, broadcaster.resumePoint(broadcaster.sseId(2)));
+        assertEquals(-1, broadcaster.resumePoint(broadcaster.sseId(1)));  // sorti de l'historique
+        // même numéro, autre démarrage ou ancien format : jamais rejoué
+        assertEquals(-1, broadcaster.resumePoint("0badb007-4"));
+        assertEquals(-1, broadcaster.resumePoint("4"));
+        assertEquals(-1, broadcaster.resumePoint(broadcaster.sseId(6)));
+    }
+
+    @Test
+    void remoteWrites_ResyncOnlyWhenVersionMovesBeyondLocalWrites() {
+        broadcaster.subscribe(null);
+        when(studentJdbcRepository.localVersionBumps(TenantContext.DEFAULT_TENANT)).thenReturn(0L, 0L, 1L, 1L, 1L, 1L);
+        when(studentJdbcRepository.findVersion()).thenReturn(10L, 11L, 12L);
+
+        assertEquals(0, broadcaster.resyncRemoteWrites()); // premier relevé
+        assertEquals(0, broadcaster.resyncRemoteWrites()); // +1 : écriture locale, déjà diffusée en détail
+        assertEquals(1, broadcaster.resyncRemoteWrites()); // +1 sans écriture locale : autre instance
+    }
+
+    @Test
+    void remoteWrites_LocalCommitInProgress_RetriedLater() {
+        broadcaster.subscribe(null);
+        when(studentJdbcRepository.localVersionBumps(TenantContext.DEFAULT_TENANT)).thenReturn(-1L);
+
+        assertEquals(0, broadcaster.resyncRemoteWrites());
+        verify(studentJdbcRepository, never()).findVersion();
+    }
+
+    @Test
+    void subscribe_TooManySubscribers_ThrowsBusy() {
+        broadcaster.subscribe(null);
+        broadcaster.subscribe(null);
+
+        assertThrows(ServiceBusyException.class, () -> broadcaster.subscribe(null));
+    }
+}
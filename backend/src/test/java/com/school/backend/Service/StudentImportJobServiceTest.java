@@ -0,0 +1,92 @@
+package com.school.backend.Service;
+
+import com.school.backend.DTO.ImportJobResponse;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Exception.ResourceNotFoundException;
+import com.school.backend.Repository.StudentJdbcRepository;
+import com.school.backend.Repository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudentImportJobServiceTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private StudentJdbcRepository studentJdbcRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StudentImportJobService importJobService;
+
+    @BeforeEach
+    void setUp() {
+        importJobService = new StudentImportJobService(studentRepository, studentJdbcRepository, eventPublisher, transactionManager, 2, 1, 4, 100, 60, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importJobService.shutdown();
+    }
+
+    @Test
+    void submit_BadLinesAreReportedAndGoodChunksCommitted() throws InterruptedException {
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+                "username,level\na,L1\nb,XX\nc,L2\na,L3\nexisting,M1\nd,M2\n".getBytes(StandardCharsets.UTF_8));
+        when(studentRepository.findExistingNormalizedUsernames(any()))
+                .thenAnswer(inv -> ((List<?>) inv.getArgument(0)).contains("existing") ? List.of("existing") : List.of());
+
+        ImportJobResponse submitted = importJobService.submit(file);
+        ImportJobResponse done = awaitEnd(submitted.jobId());
+
+        assertEquals("COMPLETED", done.status());
+        assertEquals(6, done.processedRows());
+        assertEquals(3, done.importedRows());
+        assertEquals(3, done.failedRows());
+        assertEquals(List.of(3L, 5L, 6L), done.errors().stream().map(ImportJobResponse.LineError::line).toList());
+        // lots de 2 lignes valides : (a, c) puis (existing, d) → d seul, chacun dans son propre commit
+        verify(studentJdbcRepository, times(2)).insertBatch(any());
+        verify(eventPublisher, times(2)).publishEvent(any(StudentsImportedEvent.class));
+        // vérification et insertion dans la même transaction en écriture (primaire), une par lot
+        verify(transactionManager, times(2)).getTransaction(argThat(definition -> !definition.isReadOnly()));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void getJob_UnknownId_Throws404() {
+        assertThrows(ResourceNotFoundException.class, () -> importJobService.getJob("nope"));
+    }
+
+    private ImportJobResponse awaitEnd(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ImportJobResponse job = importJobService.getJob(jobId);
+            if (!job.status().equals("QUEUED") && !job.status().equals("RUNNING")) {
+                return job;
+            }
+            Thread.sleep(25);
+        }
+        fail("Import job did not finish");
+        return null;
+    }
+}
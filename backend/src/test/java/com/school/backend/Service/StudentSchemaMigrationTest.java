@@ -0,0 +1,46 @@
+package com.school.backend.Service;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Base créée avant le multi-écoles, puis mise à jour par ddl-auto: update (H2 en mode MySQL)
+class StudentSchemaMigrationTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE students (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "tenant_id VARCHAR(64) DEFAULT 'default' NOT NULL, username VARCHAR(255) NOT NULL, level VARCHAR(255), "
+                + "CONSTRAINT UKr4q6ci3v2g5x6bwy7s0i9qkfb UNIQUE (username))");
+    }
+
+    @Test
+    void migrate_DropsLegacyUsernameKey_SameUsernameInTwoSchools() {
+        jdbcTemplate.execute("ALTER TABLE students ADD CONSTRAINT uk_students_tenant_username UNIQUE (tenant_id, username)");
+
+        new StudentSchemaMigration(dataSource, null);
+        // Deuxième démarrage : plus rien à faire
+        new StudentSchemaMigration(dataSource, null);
+
+        jdbcTemplate.update("INSERT INTO students (tenant_id, username, level) VALUES ('a', 'john', 'L1')");
+        jdbcTemplate.update("INSERT INTO students (tenant_id, username, level) VALUES ('b', 'john', 'L1')");
+        assertThrows(Exception.class, () ->
+                jdbcTemplate.update("INSERT INTO students (tenant_id, username, level) VALUES ('a', 'john', 'L2')"));
+    }
+
+    @Test
+    void migrate_WithoutPerSchoolKey_FailsFast() {
+        assertThrows(IllegalStateException.class, () -> new StudentSchemaMigration(dataSource, null));
+    }
+}
@@ -1,23 +1,54 @@
 package com.school.backend.Service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.CsvImportResponse;
+import com.school.backend.DTO.CsvMergeResponse;
+import com.school.backend.DTO.ImportJobResponse;
+import com.school.backend.DTO.PageResponse;
+import com.school.backend.DTO.StudentBatchOperation;
+import com.school.backend.DTO.StudentBatchResponse;
+import com.school.backend.DTO.StudentCursorResponse;
 import com.school.backend.DTO.StudentRequest;
+import com.school.backend.DTO.StudentSliceResponse;
 import com.school.backend.DTO.StudentResponse;
 import com.school.backend.Entity.Level;
 import com.school.backend.Entity.Student;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Event.StudentsImportedEvent;
+import com.school.backend.Exception.BadRequestException;
+import com.school.backend.Exception.ConflictException;
+import com.school.backend.Exception.CsvValidationException;
+import com.school.backend.Repository.StudentJdbcRepository;
 import com.school.backend.Repository.StudentRepository;
+import com.school.backend.Util.CursorUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,13 +57,38 @@ class StudentServiceTest {
     @Mock
     private StudentRepository studentRepository;
 
-    @InjectMocks
+    @Mock
+    private StudentJdbcRepository studentJdbcRepository;
+
+    @Mock
+    private UsernameTrigramIndex usernameIndex;
+
+    @Mock
+    private LevelStatistics levelStatistics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private StudentService studentService;
 
+    private UsernameBloomFilter usernameFilter;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private Student student;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Pas encore construit : répond "peut-être" et laisse chaque vérification aller en base
+        usernameFilter = new UsernameBloomFilter(studentJdbcRepository, 1000, 0.01);
+        studentService = new StudentService(studentRepository, studentJdbcRepository, usernameIndex,
+                new StudentCache(new CaffeineCacheManager()), usernameFilter, levelStatistics, eventPublisher, meterRegistry,
+                transactionManager, 2);
+
         student = new Student();
         student.setId(1L);
         student.setUsername("john_doe");
@@ -42,9 +98,9 @@ class StudentServiceTest {
     @Test
     void getAllStudents_NoFilter_ReturnsPage() {
         Pageable pageable = PageRequest.of(0, 10, Sort.by("id").ascending());
-        Page<Student> page = new PageImpl<>(List.of(student), pageable, 1);
+        Page<StudentResponse> page = new PageImpl<>(List.of(StudentService.toResponse(student)), pageable, 1);
 
-        when(studentRepository.findAll(pageable)).thenReturn(page);
+        when(studentRepository.findAllBy(pageable)).thenReturn(page);
 
         Page<StudentResponse> result = studentService.getAllStudents(0, 10, null, null);
 
@@ -56,7 +112,7 @@ class StudentServiceTest {
     @Test
     void getAllStudents_WithUsernameSearch() {
         Pageable pageable = PageRequest.of(0, 10, Sort.by("id"));
-        Page<Student> page = new PageImpl<>(List.of(student));
+        Page<StudentResponse> page = new PageImpl<>(List.of(StudentService.toResponse(student)));
 
         when(studentRepository.findByUsernameContainingIgnoreCase("john", pageable))
                 .thenReturn(page);
@@ -70,7 +126,7 @@ class StudentServiceTest {
     @Test
     void getAllStudents_WithLevelFilter() {
         Pageable pageable = PageRequest.of(0, 10, Sort.by("id"));
-        Page<Student> page = new PageImpl<>(List.of(student));
+        Page<StudentResponse> page = new PageImpl<>(List.of(StudentService.toResponse(student)));
 
         when(studentRepository.findByLevel(Level.L3, pageable)).thenReturn(page);
 
@@ -78,11 +134,65 @@ class StudentServiceTest {
 
         assertEquals(1, result.getTotalElements());
         assertEquals(Level.L3, result.getContent().get(0).level());
+        assertEquals(1, meterRegistry.get("students.search")
+                .tags("mode", "page", "branch", "level").timer().count());
+    }
+
+    @Test
+    void getStudentsByPrefix_QueriesNormalizedColumnInIndexOrder() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("usernameNormalized", "id").ascending());
+        when(studentRepository.findByUsernameNormalizedStartingWith("joh", pageable))
+                .thenReturn(new PageImpl<>(List.of(StudentService.toResponse(student)), pageable, 1));
+
+        Page<StudentResponse> result = studentService.getStudentsByPrefix(0, 10, " JoH ", null);
+
+        assertEquals("john_doe", result.getContent().get(0).username());
+        verify(studentRepository, never()).findByUsernameContainingIgnoreCase(any(), any());
+        assertEquals(1, meterRegistry.get("students.search").tags("branch", "name_prefix").timer().count());
+    }
+
+    @Test
+    void createStudent_UsernameTakenInAnotherCase_ThrowsConflict() {
+        when(studentRepository.existsByUsernameNormalized("john_doe")).thenReturn(true);
+
+        assertThrows(ConflictException.class,
+                () -> studentService.createStudent(new StudentRequest("John_DOE", Level.L1)));
+        verify(studentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void getStudentsSlice_NeverCounts() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("id"));
+        when(studentRepository.findSliceByLevel(Level.L3, pageable))
+                .thenReturn(new SliceImpl<>(List.of(StudentService.toResponse(student)), pageable, true));
+
+        StudentSliceResponse result = studentService.getStudentsSlice(0, 10, null, Level.L3, true);
+
+        assertTrue(result.hasNext());
+        assertNull(result.approximateTotal());
+        assertEquals("john_doe", result.content().get(0).username());
+        verify(studentRepository, never()).findByLevel(any(), any());
+        verify(levelStatistics, never()).total();
+    }
+
+    @Test
+    void getStudentsAfter_ReadsOneExtraRowToDetectNextPage() {
+        StudentResponse next = new StudentResponse(2L, "alice", Level.M1);
+
+        when(studentRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2)))
+                .thenReturn(List.of(StudentService.toResponse(student), next));
+
+        StudentCursorResponse result = studentService.getStudentsAfter(null, 1, null, null);
+
+        assertEquals(1, result.content().size());
+        assertTrue(result.hasNext());
+        assertEquals(1L, result.lastId());
+        assertEquals(1L, CursorUtil.decode(result.nextCursor()));
     }
 
     @Test
     void getStudentById_Found() {
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        when(studentRepository.findResponseById(1L)).thenReturn(Optional.of(StudentService.toResponse(student)));
 
         StudentResponse found = studentService.getStudentById(1L);
 
@@ -90,9 +200,20 @@ class StudentServiceTest {
         assertEquals(Level.L3, found.level());
     }
 
+    @Test
+    void getStudentById_SecondCallServedFromCache() {
+        when(studentRepository.findResponseById(1L)).thenReturn(Optional.of(StudentService.toResponse(student)));
+
+        studentService.getStudentById(1L);
+        StudentResponse found = studentService.getStudentById(1L);
+
+        assertEquals("john_doe", found.username());
+        verify(studentRepository, times(1)).findResponseById(1L);
+    }
+
     @Test
     void getStudentById_NotFound_ThrowsException() {
-        when(studentRepository.findById(99L)).thenReturn(Optional.empty());
+        when(studentRepository.findResponseById(99L)).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class, () -> studentService.getStudentById(99L));
     }
@@ -105,13 +226,42 @@ class StudentServiceTest {
         saved.setUsername("alice");
         saved.setLevel(Level.M1);
 
-        when(studentRepository.save(any(Student.class))).thenReturn(saved);
+        when(studentRepository.saveAndFlush(any(Student.class))).thenReturn(saved);
 
         StudentResponse created = studentService.createStudent(request);
 
         assertEquals("alice", created.username());
         assertEquals(Level.M1, created.level());
-        verify(studentRepository).save(any(Student.class));
+        verify(studentRepository).saveAndFlush(any(Student.class));
+        // ETag partagé entre instances : version de l'école incrémentée dans la transaction
+        verify(studentJdbcRepository).bumpVersion();
+    }
+
+    @Test
+    void createStudent_DefinitelyNewUsername_SkipsExistenceQuery() {
+        when(studentJdbcRepository.countAll()).thenReturn(1L);
+        doAnswer(i -> {
+            i.<BiConsumer<String, StudentResponse>>getArgument(0)
+                    .accept(TenantContext.DEFAULT_TENANT, StudentService.toResponse(student));
+            return null;
+        }).when(studentJdbcRepository).scanAll(any());
+        usernameFilter.rebuild();
+        when(studentRepository.saveAndFlush(any(Student.class))).thenAnswer(i -> i.getArgument(0));
+
+        studentService.createStudent(new StudentRequest("brand_new", Level.L1));
+
+        verify(studentRepository, never()).existsByUsernameNormalized(any());
+        assertTrue(usernameFilter.mightContain("JOHN_DOE"));
+    }
+
+    @Test
+    void createStudent_UniqueConstraintViolation_ThrowsConflict() {
+        when(studentRepository.saveAndFlush(any(Student.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        assertThrows(ConflictException.class,
+                () -> studentService.createStudent(new StudentRequest("racer", Level.L1)));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -119,20 +269,203 @@ class StudentServiceTest {
         StudentRequest updateRequest = new StudentRequest("john_updated", Level.M2);
 
         when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
-        when(studentRepository.save(any(Student.class))).thenAnswer(i -> i.getArgument(0));
+        when(studentRepository.saveAndFlush(any(Student.class))).thenAnswer(i -> i.getArgument(0));
 
         StudentResponse result = studentService.updateStudent(1L, updateRequest);
 
         assertEquals("john_updated", result.username());
         assertEquals(Level.M2, result.level());
+        // Les abonnés (ETag, cache, index, SSE) ne voient l'écriture qu'une fois commitée
+        var order = inOrder(transactionManager, eventPublisher);
+        order.verify(transactionManager).commit(any());
+        order.verify(eventPublisher).publishEvent(any(StudentChangedEvent.class));
+    }
+
+    @Test
+    void getAllStudents_WithUsernameSearch_UsesTrigramIndexWhenReady() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("id"));
+        when(usernameIndex.isReady()).thenReturn(true);
+        when(usernameIndex.search("john", null, 0L, 0, 10))
+                .thenReturn(new UsernameTrigramIndex.Matches(List.of(1L), 1));
+        when(studentRepository.findByIdIn(List.of(1L))).thenReturn(List.of(StudentService.toResponse(student)));
+
+        Page<StudentResponse> result = studentService.getAllStudents(0, 10, "john", null);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals("john_doe", result.getContent().get(0).username());
+        verify(studentRepository, never()).findByUsernameContainingIgnoreCase(any(), any());
     }
 
     @Test
     void deleteStudent_Success() {
-        when(studentRepository.existsById(1L)).thenReturn(true);
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
 
         studentService.deleteStudent(1L);
 
-        verify(studentRepository).deleteById(1L);
+        verify(studentRepository).delete(student);
+        verify(eventPublisher).publishEvent(any(StudentChangedEvent.class));
+    }
+
+    @Test
+    void exportToCsv_StreamsRowsToOutput() throws Exception {
+        when(studentRepository.streamAllForExport()).thenReturn(Stream.of(
+                new StudentResponse(1L, "john_doe", Level.L3),
+                new StudentResponse(2L, "alice", Level.M1)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        studentService.exportToCsv(out);
+
+        assertEquals("username,level\njohn_doe,L3\nalice,M1\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writePageJson_MatchesBufferedPageResponse() throws Exception {
+        List<StudentResponse> rows = List.of(
+                new StudentResponse(3L, "john_doe", Level.L3),
+                new StudentResponse(4L, "alice", Level.L3));
+        when(studentRepository.countByLevel(Level.L3)).thenReturn(5L);
+        doAnswer(i -> {
+            rows.forEach(i.<Consumer<StudentResponse>>getArgument(3));
+            return null;
+        }).when(studentJdbcRepository).scanPage(eq(Level.L3), eq(2L), eq(2), any());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            studentService.writePageJson(1, 2, Level.L3, json);
+        }
+
+        String buffered = objectMapper.writeValueAsString(
+                PageResponse.of(new PageImpl<>(rows, PageRequest.of(1, 2), 5)));
+        assertEquals(objectMapper.readTree(buffered), objectMapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    void importFromCsv_ChecksDuplicatesAndInsertsInBatches() {
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+                "username,level\na,L1\nb,L2\nc,M1\n".getBytes(StandardCharsets.UTF_8));
+        when(studentRepository.findExistingNormalizedUsernames(any())).thenReturn(List.of());
+
+        CsvImportResponse result = studentService.importFromCsv(file);
+
+        assertEquals(3, result.imported());
+        verify(studentRepository, times(2)).findExistingNormalizedUsernames(any());
+        verify(studentJdbcRepository, times(2)).insertBatch(any());
+        verify(studentRepository, never()).existsByUsernameNormalized(any());
+    }
+
+    @Test
+    void importFromCsv_ExistingUsername_InsertsNothing() {
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+                "username,level\na,L1\njohn_doe,L2\n".getBytes(StandardCharsets.UTF_8));
+        when(studentRepository.findExistingNormalizedUsernames(any())).thenReturn(List.of("john_doe"));
+
+        assertThrows(BadRequestException.class, () -> studentService.importFromCsv(file));
+        verify(studentJdbcRepository, never()).insertBatch(any());
+    }
+
+    @Test
+    void importFromCsv_ConcurrentDuplicate_ReportsCommittedRows() {
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+                "username,level\na,L1\nb,L2\nc,M1\n".getBytes(StandardCharsets.UTF_8));
+        when(studentRepository.findExistingNormalizedUsernames(any())).thenReturn(List.of());
+        // premier lot (a, b) commité ; c créé par une autre requête après la validation
+        doNothing().doThrow(new DuplicateKeyException("Duplicate entry 'c'"))
+                .when(studentJdbcRepository).insertBatch(any());
+
+        ConflictException e = assertThrows(ConflictException.class, () -> studentService.importFromCsv(file));
+
+        assertTrue(e.getMessage().contains("from line 4"), e.getMessage());
+        assertTrue(e.getMessage().contains("2 row(s)"), e.getMessage());
+        verify(eventPublisher, times(1)).publishEvent(any(StudentsImportedEvent.class));
+    }
+
+    @Test
+    void importFromCsv_InvalidLines_RejectedWithLineErrors() {
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+                "username,level\n\"doe, john\",L1\nb,XX\nDOE, JOHN\n\"Doe, John\",M1\n".getBytes(StandardCharsets.UTF_8));
+
+        CsvValidationException e = assertThrows(CsvValidationException.class, () -> studentService.importFromCsv(file));
+
+        assertEquals(List.of(3L, 4L, 5L), e.getErrors().stream().map(ImportJobResponse.LineError::line).toList());
+        assertEquals("Duplicate username in file: Doe, John", e.getErrors().get(2).message());
+        verify(studentJdbcRepository, never()).insertBatch(any());
+    }
+
+    @Test
+    void mergeFromCsv_UpsertsOnlyNewAndChangedRows() {
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+                "username,level\nJOHN_DOE,M1\njane,L1\nnew_one,L2\n".getBytes(StandardCharsets.UTF_8));
+        when(studentJdbcRepository.findByNormalizedUsernames(List.of("john_doe", "jane"))).thenReturn(Map.of(
+                "john_doe", new StudentResponse(1L, "john_doe", Level.L3),
+                "jane", new StudentResponse(2L, "jane", Level.L1)));
+        // avant l'upsert : inconnu ; après : relu avec son id
+        when(studentJdbcRepository.findByNormalizedUsernames(List.of("new_one")))
+                .thenReturn(Map.of(), Map.of("new_one", new StudentResponse(3L, "new_one", Level.L2)));
+        when(studentJdbcRepository.findByNormalizedUsernames(List.of())).thenReturn(Map.of());
+
+        CsvMergeResponse result = studentService.mergeFromCsv(file);
+
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(1, result.unchanged());
+        // lot 1 (john_doe, jane) : seul john_doe change ; lot 2 : new_one
+        verify(studentJdbcRepository).upsertBatch(argThat(l -> l.size() == 1
+                && l.get(0).getUsername().equals("john_doe") && l.get(0).getLevel() == Level.M1));
+        verify(studentJdbcRepository).upsertBatch(argThat(l -> l.size() == 1 && l.get(0).getUsername().equals("new_one")));
+        verify(eventPublisher).publishEvent(any(StudentsImportedEvent.class));
+        verify(eventPublisher).publishEvent(any(StudentChangedEvent.class));
+        verify(studentRepository, never()).findExistingNormalizedUsernames(any());
+    }
+
+    @Test
+    void applyBatch_UsernameUnknownToLocalFilter_StillCheckedInDatabase() {
+        // filtre construit sans "from_other_node" : créé depuis sur une autre instance
+        usernameFilter.rebuild();
+        when(studentRepository.findExistingNormalizedUsernames(any())).thenReturn(List.of("from_other_node"));
+
+        StudentBatchResponse result = studentService.applyBatch(List.of(
+                new StudentBatchOperation(StudentBatchOperation.Type.CREATE, null, "from_other_node", Level.L1)));
+
+        assertEquals("CONFLICT", result.results().get(0).status());
+        verify(studentJdbcRepository, never()).insertBatch(any());
+    }
+
+    @Test
+    void applyBatch_MixedOperations_ReportsEachItemAndWritesInBatches() {
+        Student other = new Student(2L, "jane", Level.L1);
+        when(studentRepository.findAllById(any())).thenReturn(List.of(student, other));
+        when(studentRepository.findExistingNormalizedUsernames(any())).thenReturn(List.of("john_doe"));
+        doAnswer(inv -> {
+            List<Student> created = inv.getArgument(0);
+            created.get(0).setId(10L);
+            return null;
+        }).when(studentJdbcRepository).insertBatch(any());
+
+        StudentBatchResponse result = studentService.applyBatch(List.of(
+                new StudentBatchOperation(StudentBatchOperation.Type.CREATE, null, "new_one", Level.M1),
+                new StudentBatchOperation(StudentBatchOperation.Type.UPDATE, 1L, "john_doe", Level.M2),
+                new StudentBatchOperation(StudentBatchOperation.Type.DELETE, 2L, null, null),
+                new StudentBatchOperation(StudentBatchOperation.Type.CREATE, null, "JOHN_DOE", Level.L1),
+                new StudentBatchOperation(StudentBatchOperation.Type.DELETE, 99L, null, null),
+                new StudentBatchOperation(StudentBatchOperation.Type.UPDATE, 1L, "again", Level.L1),
+                new StudentBatchOperation(StudentBatchOperation.Type.CREATE, null, " ", Level.L1)));
+
+        assertEquals(3, result.succeeded());
+        assertEquals(4, result.failed());
+        assertEquals(List.of("CREATED", "UPDATED", "DELETED", "CONFLICT", "NOT_FOUND", "BAD_REQUEST", "BAD_REQUEST"),
+                result.results().stream().map(StudentBatchResponse.Item::status).toList());
+        assertEquals(10L, result.results().get(0).id());
+        assertEquals(Level.M2, result.results().get(1).student().level());
+
+        // une lecture des ids, une vérification des usernames, un lot par type d'écriture
+        verify(studentRepository, times(1)).findAllById(any());
+        verify(studentRepository, times(1)).findExistingNormalizedUsernames(
+                argThat(u -> u.containsAll(List.of("new_one", "john_doe")) && !u.contains("JOHN_DOE")));
+        verify(studentJdbcRepository).deleteBatch(List.of(2L));
+        verify(studentJdbcRepository).updateBatch(argThat(list -> list.size() == 1));
+        verify(studentJdbcRepository).insertBatch(argThat(list -> list.size() == 1));
+        verify(studentRepository, never()).save(any());
+        verify(eventPublisher, times(3)).publishEvent(any(StudentChangedEvent.class));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.school.backend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsernameBloomFilterTest {
+
+    @Test
+    void bits_NoFalseNegativesAndFalsePositivesNearTarget() {
+        UsernameBloomFilter.Bits bits = new UsernameBloomFilter.Bits(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bits.put("student" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bits.mightContain("student" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bits.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives); // cible 1 %, marge x3
+    }
+}
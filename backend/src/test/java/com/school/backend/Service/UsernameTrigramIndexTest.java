@@ -0,0 +1,101 @@
+package com.school.backend.Service;
+
+import com.school.backend.Config.TenantContext;
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Event.StudentChangedEvent;
+import com.school.backend.Repository.StudentJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UsernameTrigramIndexTest {
+
+    private UsernameTrigramIndex index;
+
+    private StudentJdbcRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(StudentJdbcRepository.class);
+        doAnswer(i -> {
+            BiConsumer<String, StudentResponse> rows = i.getArgument(0);
+            rows.accept(TenantContext.DEFAULT_TENANT, new StudentResponse(1L, "John_Doe", Level.L3));
+            rows.accept(TenantContext.DEFAULT_TENANT, new StudentResponse(2L, "johnny", Level.M1));
+            rows.accept(TenantContext.DEFAULT_TENANT, new StudentResponse(3L, "alice", Level.L3));
+            rows.accept("school2", new StudentResponse(5L, "johnson", Level.L3));
+            return null;
+        }).when(repository).scanAll(any());
+        index = new UsernameTrigramIndex(repository);
+        index.rebuild();
+    }
+
+    @Test
+    void search_IsCaseInsensitiveSubstring() {
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 2L), index.search("JOHN", null, 0L, 0, 10).ids());
+        assertEquals(List.of(1L), index.search("n_d", null, 0L, 0, 10).ids());
+        assertEquals(List.of(), index.search("bob", null, 0L, 0, 10).ids());
+    }
+
+    @Test
+    void search_ShortTermsAndLevelFilter() {
+        assertEquals(List.of(1L, 3L), index.search("e", Level.L3, 0L, 0, 10).ids());
+    }
+
+    @Test
+    void search_PagesAndCountsTotal() {
+        UsernameTrigramIndex.Matches matches = index.search("oh", null, 0L, 1, 1);
+
+        assertEquals(List.of(2L), matches.ids());
+        assertEquals(2, matches.total());
+        assertEquals(List.of(2L), index.search("john", null, 1L, 0, 10).ids());
+    }
+
+    @Test
+    void events_KeepIndexInSync() {
+        StudentResponse before = new StudentResponse(3L, "alice", Level.L3);
+        StudentResponse after = new StudentResponse(3L, "alicia", Level.L3);
+
+        index.onStudentChanged(StudentChangedEvent.updated(before, after));
+        index.onStudentChanged(StudentChangedEvent.deleted(new StudentResponse(2L, "johnny", Level.M1)));
+        index.onStudentChanged(StudentChangedEvent.created(new StudentResponse(4L, "bob", Level.L1)));
+
+        assertEquals(List.of(3L), index.search("lici", null, 0L, 0, 10).ids());
+        assertEquals(List.of(1L), index.search("john", null, 0L, 0, 10).ids());
+        assertEquals(List.of(4L), index.search("bob", null, 0L, 0, 10).ids());
+        assertEquals(4, index.stats().students());
+    }
+
+    @Test
+    void rebuild_PicksUpWritesMadeElsewhere() {
+        // Autre instance : alice renommée, johnny supprimé, zoe créée
+        doAnswer(i -> {
+            BiConsumer<String, StudentResponse> rows = i.getArgument(0);
+            rows.accept(TenantContext.DEFAULT_TENANT, new StudentResponse(1L, "John_Doe", Level.L3));
+            rows.accept(TenantContext.DEFAULT_TENANT, new StudentResponse(3L, "alicia", Level.L3));
+            rows.accept(TenantContext.DEFAULT_TENANT, new StudentResponse(6L, "zoe", Level.L1));
+            return null;
+        }).when(repository).scanAll(any());
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), index.search("john", null, 0L, 0, 10).ids());
+        assertEquals(List.of(3L), index.search("lici", null, 0L, 0, 10).ids());
+        assertEquals(List.of(6L), index.search("zoe", null, 0L, 0, 10).ids());
+        assertEquals(3, index.stats().students());
+    }
+
+    @Test
+    void search_OnlyMatchesCurrentTenant() {
+        assertEquals(List.of(5L), TenantContext.callAs("school2", () -> index.search("john", null, 0L, 0, 10).ids()));
+        assertEquals(List.of(5L), TenantContext.callAs("school2", () -> index.search("j", Level.L3, 0L, 0, 10).ids()));
+        assertEquals(List.of(), TenantContext.callAs("school3", () -> index.search("john", null, 0L, 0, 10).ids()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.school.backend.Util;
+
+import com.school.backend.DTO.StudentResponse;
+import com.school.backend.Entity.Level;
+import com.school.backend.Entity.Student;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvUtilTest {
+
+    private final List<String> students = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+
+    @Test
+    void parseCsv_QuotedFieldsBomAndCrlf() throws IOException {
+        long rows = parse("\uFEFFusername,level\r\n"
+                + "\"doe, john\",L1\r\n"
+                + "\"say \"\"hi\"\"\",m2\r\n"
+                + "\r\n"
+                + "\"multi\nline\",L3\r\n"
+                + "  alice  ,  L2");
+
+        assertEquals(4, rows);
+        assertEquals(List.of("2:doe, john:L1", "3:say \"hi\":M2", "5:multi\nline:L3", "7:alice:L2"), students);
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    void parseCsv_ReportsEachBadLineAndKeepsGoing() throws IOException {
+        parse("username,level\n"
+                + "a,L1\n"
+                + "b,XX\n"
+                + "c\n"
+                + ",L1\n"
+                + "\"d\"x,L1\n"
+                + "e,M1\n"
+                + "\"never closed,L1\n"
+                + "f,L2\n");
+
+        assertEquals(List.of("2:a:L1", "7:e:M1"), students);
+        assertEquals(List.of(
+                "3:Unknown level: XX",
+                "4:Expected 'username,level'",
+                "5:Username is required",
+                "6:Unexpected character after closing quote",
+                "8:Unterminated quoted field"), errors);
+    }
+
+    @Test
+    void parseCsv_InvalidUtf8_IsALineError() throws IOException {
+        byte[] bytes = "username,level\nok,L1\nbad\u0001,L1\n".getBytes(StandardCharsets.UTF_8);
+        bytes[bytes.length - 5] = (byte) 0xFF; // remplace \u0001
+
+        parse(bytes);
+
+        assertEquals(List.of("2:ok:L1"), students);
+        assertEquals(List.of("3:Username is not valid UTF-8"), errors);
+    }
+
+    @Test
+    void parseCsv_LargeFileAcrossBufferRefills() throws IOException {
+        StringBuilder csv = new StringBuilder(CsvUtil.HEADER).append('\n');
+        for (int i = 0; i < 5000; i++) {
+            csv.append(i % 7 == 0 ? "\"user," + i + "\"" : "user" + i).append(",L").append(i % 3 + 1).append('\n');
+        }
+
+        long rows = parse(csv.toString());
+
+        assertEquals(5000, rows);
+        assertEquals(5000, students.size());
+        assertEquals("5001:user4999:L2", students.get(4999));
+        assertEquals("4902:user,4900:L2", students.get(4900));
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    void writeCsv_QuotesWhatParseCsvReadsBack() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvUtil.writeCsv(List.of(
+                new StudentResponse(1L, "plain", Level.L1),
+                new StudentResponse(2L, "doe, \"j\"", Level.M1)).iterator(), out);
+
+        assertEquals("username,level\nplain,L1\n\"doe, \"\"j\"\"\",M1\n", out.toString(StandardCharsets.UTF_8));
+        parse(out.toByteArray());
+        assertEquals(List.of("2:plain:L1", "3:doe, \"j\":M1"), students);
+    }
+
+    private long parse(String csv) throws IOException {
+        return parse(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long parse(byte[] csv) throws IOException {
+        return CsvUtil.parseCsv(new ByteArrayInputStream(csv), new CsvUtil.RowHandler() {
+            @Override
+            public void onStudent(long line, Student student) {
+                students.add(line + ":" + student.getUsername() + ":" + student.getLevel());
+            }
+
+            @Override
+            public void onError(long line, String message) {
+                errors.add(line + ":" + message);
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.school.backend.Util;
+
+import com.school.backend.Entity.Admin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+    private Admin admin;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "mySuperSecretJwtKeyThatIsVeryLongAndSecure12345678901234567890");
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 100L);
+        jwtUtil.init();
+
+        admin = new Admin();
+        admin.setUsername("admin");
+        admin.setPassword("hash");
+    }
+
+    @Test
+    void verify_ValidToken_ReturnsClaimsOnce() {
+        String token = jwtUtil.generateToken(admin);
+
+        JwtUtil.VerifiedToken first = jwtUtil.verify(token).orElseThrow();
+        JwtUtil.VerifiedToken second = jwtUtil.verify(token).orElseThrow();
+
+        assertEquals("admin", first.username());
+        assertEquals(List.of("ROLE_ADMIN"), first.authorities());
+        assertSame(first, second); // servi par le cache, pas re-parsé
+        assertTrue(jwtUtil.isTokenValid(token, admin));
+    }
+
+    @Test
+    void verify_TamperedToken_ReturnsEmpty() {
+        String token = jwtUtil.generateToken(admin);
+        jwtUtil.verify(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(jwtUtil.verify(tampered).isEmpty());
+        assertTrue(jwtUtil.verify("not-a-jwt").isEmpty());
+    }
+
+    @Test
+    void verify_ExpiredToken_ReturnsEmpty() {
+        ReflectionTestUtils.setField(jwtUtil, "expirationMs", -1_000L);
+
+        assertTrue(jwtUtil.verify(jwtUtil.generateToken(admin)).isEmpty());
+    }
+}
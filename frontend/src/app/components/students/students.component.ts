@@ -1,7 +1,8 @@
-import { Component, OnInit, inject, signal, effect } from '@angular/core';
+import { Component, OnInit, OnDestroy, inject, signal, effect } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { ActivatedRoute, Router } from '@angular/router';
+import { Subscription, debounceTime } from 'rxjs';
 import { 
   StudentService, 
   StudentResponse, 
@@ -18,7 +19,7 @@ import { AuthService } from '../../services/auth.service';
   templateUrl: './students.component.html',
   styleUrl: './students.component.css'
 })
-export class StudentsComponent implements OnInit {
+export class StudentsComponent implements OnInit, OnDestroy {
 
   studentService = inject(StudentService);
   authService = inject(AuthService);
@@ -40,6 +41,9 @@ export class StudentsComponent implements OnInit {
   fileImportMessage = signal<string | null>(null);
   fileImportError = signal<string | null>(null);
 
+  // Flux des changements côté serveur
+  private changesSubscription?: Subscription;
+
   constructor() {
     // Update URL when state changes (page, search, filter)
     effect(() => {
@@ -68,6 +72,19 @@ export class StudentsComponent implements OnInit {
 
     // Load data once state is restored
     this.loadStudents();
+
+    // Rechargement de la page courante quand un autre onglet / utilisateur modifie les étudiants
+    // (regroupé : un import déclenche un seul rechargement)
+    this.changesSubscription = this.studentService.changes()
+      .pipe(debounceTime(300))
+      .subscribe({
+        next: () => this.loadStudents(),
+        error: (err) => console.error('Student change feed stopped:', err)
+      });
+  }
+
+  ngOnDestroy(): void {
+    this.changesSubscription?.unsubscribe();
   }
 
   loadStudents(): void {
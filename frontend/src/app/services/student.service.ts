@@ -21,7 +21,68 @@ export interface StudentResponse {
   level: Level;
 }
 
-// Structure de la réponse paginée du backend (Page<StudentResponse>)
+// Opération d'un lot (POST /api/students/batch)
+export interface StudentBatchOperation {
+  op: 'CREATE' | 'UPDATE' | 'DELETE';
+  id?: number;
+  username?: string;
+  level?: Level;
+}
+
+// Un résultat par opération, dans l'ordre envoyé
+export interface StudentBatchResponse {
+  results: {
+    index: number;
+    op: 'CREATE' | 'UPDATE' | 'DELETE' | null;
+    id: number | null;
+    status: string; // CREATED / UPDATED / DELETED ou BAD_REQUEST / NOT_FOUND / CONFLICT
+    message: string | null;
+    student: StudentResponse | null;
+  }[];
+  succeeded: number;
+  failed: number;
+}
+
+// Import CSV en tâche de fond (POST /import/csv?async=true, GET/DELETE /import/{jobId})
+export interface ImportJobResponse {
+  jobId: string;
+  status: 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED' | 'CANCELLED';
+  processedRows: number;
+  importedRows: number;
+  failedRows: number;
+  rowsPerSecond: number;
+  startedAt: string | null;
+  finishedAt: string | null;
+  message: string | null;
+  errors: { line: number; message: string }[];
+}
+
+// Import en fusion (POST /import/csv?mode=merge)
+export interface CsvMergeResponse {
+  inserted: number;
+  updated: number;
+  unchanged: number;
+  durationMs: number;
+  rowsPerSecond: number;
+}
+
+// Effectifs par niveau (GET /api/students/stats)
+export interface StudentStatsResponse {
+  total: number;
+  byLevel: Record<Level, number>;
+  reconciledAt: string | null;
+}
+
+// Message du flux SSE (GET /api/students/events)
+export interface StudentChangeMessage {
+  eventId: number;
+  type: 'CREATED' | 'UPDATED' | 'DELETED' | 'IMPORTED' | 'RESYNC'; // RESYNC : recharger la liste
+  before: StudentResponse | null;
+  after: StudentResponse | null;
+  count: number;
+}
+
+// Structure de la réponse paginée du backend (PageResponse<StudentResponse>)
 export interface PageResponse<T> {
   content: T[];
   totalPages: number;
@@ -63,13 +124,18 @@ export class StudentService {
   // --- Requêtes API ---
 
   // GET ALL + PAGINATION + FILTRAGE
-  getAll(page: number, size: number, search: string | null, level: Level | null): Observable<PageResponse<StudentResponse>> {
+  // mode 'prefix' : usernames commençant par search (type-ahead, servi par l'index)
+  getAll(page: number, size: number, search: string | null, level: Level | null,
+         mode: 'contains' | 'prefix' = 'contains'): Observable<PageResponse<StudentResponse>> {
     let params = new HttpParams()
       .set('page', page.toString())
       .set('size', size.toString());
 
     if (search) {
       params = params.set('search', search);
+      if (mode === 'prefix') {
+        params = params.set('mode', mode);
+      }
     }
     if (level) {
       params = params.set('level', level);
@@ -83,6 +149,12 @@ export class StudentService {
       );
   }
 
+  // STATS : effectifs par niveau, servis depuis la mémoire du backend
+  getStats(): Observable<StudentStatsResponse> {
+    return this.http.get<StudentStatsResponse>(`${this.apiUrl}/stats`, { headers: this.getHeaders() })
+      .pipe(catchError(this.handleError));
+  }
+
   // GET BY ID
   getById(id: number): Observable<StudentResponse> {
     return this.http.get<StudentResponse>(`${this.apiUrl}/${id}`, { headers: this.getHeaders() })
@@ -119,6 +191,15 @@ export class StudentService {
       );
   }
 
+  // BATCH : plusieurs créations / modifications / suppressions en une requête et une transaction
+  batch(operations: StudentBatchOperation[]): Observable<StudentBatchResponse> {
+    return this.http.post<StudentBatchResponse>(`${this.apiUrl}/batch`, { operations }, { headers: this.getHeaders() })
+      .pipe(
+        tap(res => console.log(`Batch applied: ${res.succeeded} ok, ${res.failed} failed`)),
+        catchError(this.handleError)
+      );
+  }
+
   // EXPORT CSV
   exportCsv(): Observable<Blob> {
     return this.http.get(`${this.apiUrl}/export/csv`, {
@@ -141,6 +222,94 @@ export class StudentService {
       );
   }
 
+  // IMPORT CSV EN FUSION : met à jour le niveau des usernames existants, crée les autres
+  mergeCsv(file: File): Observable<CsvMergeResponse> {
+    const formData = new FormData();
+    formData.append('file', file, file.name);
+    const params = new HttpParams().set('mode', 'merge');
+    return this.http.post<CsvMergeResponse>(`${this.apiUrl}/import/csv`, formData, { params, headers: this.getHeaders() })
+      .pipe(
+        tap(res => console.log(`CSV merge: ${res.inserted} inserted, ${res.updated} updated, ${res.unchanged} unchanged`)),
+        catchError(this.handleError)
+      );
+  }
+
+  // IMPORT CSV ASYNCHRONE : renvoie tout de suite l'id du job, à suivre avec getImportJob
+  importCsvAsync(file: File): Observable<ImportJobResponse> {
+    const formData = new FormData();
+    formData.append('file', file, file.name);
+    const params = new HttpParams().set('async', 'true');
+    return this.http.post<ImportJobResponse>(`${this.apiUrl}/import/csv`, formData, { params, headers: this.getHeaders() })
+      .pipe(catchError(this.handleError));
+  }
+
+  getImportJob(jobId: string): Observable<ImportJobResponse> {
+    return this.http.get<ImportJobResponse>(`${this.apiUrl}/import/${jobId}`, { headers: this.getHeaders() })
+      .pipe(catchError(this.handleError));
+  }
+
+  cancelImportJob(jobId: string): Observable<ImportJobResponse> {
+    return this.http.delete<ImportJobResponse>(`${this.apiUrl}/import/${jobId}`, { headers: this.getHeaders() })
+      .pipe(catchError(this.handleError));
+  }
+
+  // FLUX DES CHANGEMENTS (SSE) : remplace le rechargement périodique de la liste.
+  // EventSource ne permet pas d'envoyer l'en-tête Authorization : lecture du flux via fetch.
+  // Reconnexion automatique avec Last-Event-ID pour recevoir les messages manqués.
+  changes(): Observable<StudentChangeMessage> {
+    return new Observable<StudentChangeMessage>(subscriber => {
+      const controller = new AbortController();
+      let lastEventId: string | null = null;
+
+      const connect = async () => {
+        while (!controller.signal.aborted) {
+          try {
+            const headers: Record<string, string> = {
+              'Authorization': `Bearer ${this.authService.getToken()}`,
+              'Accept': 'text/event-stream'
+            };
+            if (lastEventId) {
+              headers['Last-Event-ID'] = lastEventId;
+            }
+            const response = await fetch(`${this.apiUrl}/events`, { headers, signal: controller.signal });
+            if (response.status === 401 || response.status === 403) {
+              subscriber.error(new Error('Not authorized to follow student changes'));
+              return;
+            }
+            if (!response.ok || !response.body) {
+              throw new Error(`HTTP ${response.status}`);
+            }
+            const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+            let buffer = '';
+            for (;;) {
+              const { value, done } = await reader.read();
+              if (done) break;
+              buffer += value;
+              let end: number;
+              while ((end = buffer.indexOf('\n\n')) >= 0) {
+                const block = buffer.slice(0, end);
+                buffer = buffer.slice(end + 2);
+                let data = '';
+                for (const line of block.split('\n')) {
+                  if (line.startsWith('id:')) lastEventId = line.slice(3).trim();
+                  else if (line.startsWith('data:')) data += line.slice(5);
+                }
+                if (data) subscriber.next(JSON.parse(data) as StudentChangeMessage);
+              }
+            }
+          } catch (e) {
+            if (controller.signal.aborted) return;
+          }
+          // Déconnecté (timeout serveur, réseau) : nouvelle tentative après une courte pause
+          await new Promise(resolve => setTimeout(resolve, 3000));
+        }
+      };
+
+      connect();
+      return () => controller.abort();
+    });
+  }
+
   // Gestion des erreurs
   private handleError(error: any) {
     console.error('An error occurred:', error.error);